@@ -1,4 +1,4 @@
-package br.com.ada.currencyapi.client;
+package br.com.ada.currencyapi.benchmark;
 
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import lombok.AllArgsConstructor;
@@ -0,0 +1,146 @@
+package br.com.ada.currencyapi.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import br.com.ada.currencyapi.client.FeignQuoteRatesClient;
+import br.com.ada.currencyapi.client.QuoteBatcher;
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.client.SingleFlightQuoteClient;
+import br.com.ada.currencyapi.config.HedgingProperties;
+import br.com.ada.currencyapi.config.HistoryProperties;
+import br.com.ada.currencyapi.config.QuoteCacheProperties;
+import br.com.ada.currencyapi.config.BatchProperties;
+import br.com.ada.currencyapi.config.ListingProperties;
+import br.com.ada.currencyapi.config.RatesProperties;
+import br.com.ada.currencyapi.config.StreamProperties;
+import br.com.ada.currencyapi.config.TriangulationProperties;
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import br.com.ada.currencyapi.domain.ConvertCurrencyRequest;
+import br.com.ada.currencyapi.domain.ConvertCurrencyResponse;
+import br.com.ada.currencyapi.service.ConversionGraph;
+import br.com.ada.currencyapi.service.CurrencyService;
+import br.com.ada.currencyapi.service.QuoteHistory;
+import br.com.ada.currencyapi.service.QuoteService;
+import br.com.ada.currencyapi.service.RateMatrix;
+import br.com.ada.currencyapi.service.RateMatrixHolder;
+import br.com.ada.currencyapi.service.RateStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"20", "500"})
+    private int currencies;
+
+    private CurrencyService currencyService;
+
+    private SingleFlightQuoteClient quoteClient;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    private ConvertCurrencyRequest direct;
+
+    private ConvertCurrencyRequest cross;
+
+    private ConvertCurrencyRequest external;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<RateMatrix.Row> rows = new ArrayList<>();
+        for (int i = 0; i < currencies; i++) {
+            Map<String, BigDecimal> exchanges = new HashMap<>();
+            for (int j = 0; j < 10; j++) {
+                exchanges.put("C" + random.nextInt(currencies), BigDecimal.valueOf(random.nextInt(1_000_000) + 1, 4));
+            }
+            exchanges.remove("C" + i);
+            rows.add(new RateMatrix.Row((long) i + 1, "C" + i, "Currency " + i, exchanges));
+        }
+        RateMatrix matrix = RateMatrix.of(1L, rows);
+        RateMatrix withPaths = matrix.withPaths(ConversionGraph.build(matrix, ConversionGraph.Mode.FEWEST_HOPS, 4));
+        RateMatrixHolder holder = new RateMatrixHolder(null, null, new TriangulationProperties(), null) {
+            @Override
+            public RateMatrix current() {
+                return withPaths;
+            }
+        };
+
+        UpstreamProperties upstream = new UpstreamProperties();
+        upstream.setBatchWindow(Duration.ZERO);
+        upstream.setMaxRequestsPerSecond(1_000_000_000);
+        upstream.setBurst(1_000_000);
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        StubAwesomeClient awesomeClient = new StubAwesomeClient(Map.of(
+                "USDBRL", new QuoteRate(new BigDecimal("5.1327"), new BigDecimal("5.1201"), 1715698799L)));
+        quoteClient = new SingleFlightQuoteClient(new QuoteBatcher(
+                new FeignQuoteRatesClient(awesomeClient, Runnable::run), upstream, new HedgingProperties(), scheduler, new SimpleMeterRegistry()));
+        HistoryProperties history = new HistoryProperties();
+        history.setEnabled(false);
+        QuoteService quoteService = new QuoteService(quoteClient, new QuoteCacheProperties(), Runnable::run, new QuoteHistory(history),
+                new RateStream(new StreamProperties()));
+
+        currencyService = new CurrencyService(null, holder, quoteService, null, new RatesProperties(), null, new ListingProperties(), null, null, new BatchProperties());
+
+        String from = rows.get(0).name();
+        direct = ConvertCurrencyRequest.builder().from(from).to(rows.get(0).exchanges().keySet().iterator().next())
+                .amount(new BigDecimal("123.45")).build();
+        String unreachable = rows.stream().map(RateMatrix.Row::name)
+                .filter(code -> matrix.rate(from, code) == null && withPaths.crossRate(from, code) != null)
+                .findFirst()
+                .orElse(direct.getTo());
+        cross = ConvertCurrencyRequest.builder().from(from).to(unreachable).amount(new BigDecimal("123.45")).build();
+        external = ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(new BigDecimal("123.45")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public ConvertCurrencyResponse convertDirect() {
+        return currencyService.convert(direct);
+    }
+
+    @Benchmark
+    public ConvertCurrencyResponse convertCrossRate() {
+        return currencyService.convert(cross);
+    }
+
+    @Benchmark
+    public ConvertCurrencyResponse convertUsingExternalApiCached() {
+        return currencyService.convertUsingExternalApiAsync(external).join();
+    }
+
+    @Benchmark
+    public QuoteRate upstreamFetch() {
+        return quoteClient.getAsync("USD-BRL").join();
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.ada.currencyapi.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ada.currencyapi.config.BatchProperties;
+import br.com.ada.currencyapi.config.ListingProperties;
+import br.com.ada.currencyapi.config.RatesProperties;
+import br.com.ada.currencyapi.domain.Currency;
+import br.com.ada.currencyapi.domain.CurrencyResponse;
+import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.service.CurrencyListCache;
+import br.com.ada.currencyapi.service.CurrencyListVersion;
+import br.com.ada.currencyapi.service.CurrencyService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyListBenchmark {
+
+    @Param({"100", "10000"})
+    private int currencies;
+
+    private CurrencyService currencyService;
+
+    private CurrencyListCache currencyListCache;
+
+    @Setup
+    public void setup() {
+        List<Currency> all = new ArrayList<>();
+        for (int i = 0; i < currencies; i++) {
+            all.add(Currency.builder().id((long) i + 1).name("C" + i).description("Currency " + i).build());
+        }
+        CurrencyRepository repository = (CurrencyRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CurrencyRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return all;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        currencyService = new CurrencyService(repository, null, null, null, new RatesProperties(), null, new ListingProperties(), null, null, new BatchProperties());
+        currencyListCache = new CurrencyListCache(currencyService, new CurrencyListVersion(), new ObjectMapper());
+    }
+
+    @Benchmark
+    public List<CurrencyResponse> get() {
+        return currencyService.get();
+    }
+
+    // what GET /currency hands to the response between two changes of the currency set
+    @Benchmark
+    public byte[] rendered() {
+        return currencyListCache.current().json();
+    }
+}
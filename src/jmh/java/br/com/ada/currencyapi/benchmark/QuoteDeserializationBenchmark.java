@@ -0,0 +1,62 @@
+package br.com.ada.currencyapi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ada.currencyapi.client.QuoteRates;
+import br.com.ada.currencyapi.client.QuoteRatesDecoder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteDeserializationBenchmark {
+
+    @Param({"1", "20"})
+    private int pairs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        StringJoiner json = new StringJoiner(",", "{", "}");
+        for (int i = 0; i < pairs; i++) {
+            json.add("""
+                    "C%02dBRL":{"code":"C%02d","codein":"BRL","name":"Moeda %02d/Real Brasileiro","high":"5.1327",\
+                    "low":"5.1023","varBid":"0.0121","pctChange":"0.24","bid":"5.1201","ask":"5.1211",\
+                    "timestamp":"1715698799","create_date":"2024-05-14 11:59:59"}""".formatted(i, i, i));
+        }
+        payload = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Conversion databind() throws IOException {
+        return objectMapper.readValue(payload, Conversion.class);
+    }
+
+    @Benchmark
+    public QuoteRates streaming() throws IOException {
+        return QuoteRatesDecoder.parse(new ByteArrayInputStream(payload));
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.ada.currencyapi.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import br.com.ada.currencyapi.client.AwesomeClient;
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.client.QuoteRates;
+
+class StubAwesomeClient implements AwesomeClient {
+
+    private final QuoteRates rates;
+
+    StubAwesomeClient(Map<String, QuoteRate> quotes) {
+        this.rates = new QuoteRates(new HashMap<>(quotes));
+    }
+
+    @Override
+    public QuoteRates getRates(String currencies) {
+        return rates;
+    }
+}
@@ -0,0 +1,134 @@
+package br.com.ada.currencyapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are started on a fixed schedule whatever the application's response times, and
+ * each latency is measured from when its request was due. Scenarios are drawn from the mix with a seeded
+ * random, so two runs of a profile send the same sequence of requests.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    private final LoadProfile profile;
+
+    private final URI base;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private final HttpClient httpClient;
+
+    private final Semaphore inFlight;
+
+    private final SplittableRandom random;
+
+    private final Scenario[] scenarios;
+
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(LoadProfile profile, URI base) {
+        this.profile = profile;
+        this.base = base;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        this.inFlight = new Semaphore(profile.maxInFlight());
+        this.random = new SplittableRandom(profile.seed());
+        List<Scenario> drawn = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int cumulative = 0;
+        for (Map.Entry<Scenario, Integer> entry : profile.mix().entrySet()) {
+            if (entry.getValue() > 0) {
+                cumulative += entry.getValue();
+                drawn.add(entry.getKey());
+                weights.add(cumulative);
+            }
+        }
+        if (drawn.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no scenario with a positive weight");
+        }
+        this.scenarios = drawn.toArray(Scenario[]::new);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Registers the currencies /convert picks among.
+     */
+    public void seed() {
+        for (int i = 0; i < profile.currencies(); i++) {
+            HttpResponse<Void> response = httpClient.sendAsync(Scenario.create(base, Scenario.currency(i)), HttpResponse.BodyHandlers.discarding())
+                    .join();
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Could not register %s: %d".formatted(Scenario.currency(i), response.statusCode()));
+            }
+        }
+    }
+
+    /**
+     * Sends the profile's rate for the given time, recording into the report when one is given.
+     */
+    public void run(Duration duration, LoadReport report) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / profile.rps();
+        long start = System.nanoTime();
+        long requests = duration.toNanos() / interval;
+        for (long i = 0; i < requests; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = next();
+            if (!inFlight.tryAcquire()) {
+                if (report != null) {
+                    report.drop();
+                }
+                continue;
+            }
+            HttpRequest request = scenario.request(base, profile, random);
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (report != null) {
+                    report.record(scenario, System.nanoTime() - due, error == null ? response.statusCode() : 0);
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for the requests still in flight, up to the timeout.
+     */
+    public void drain(Duration timeout) throws InterruptedException {
+        if (inFlight.tryAcquire(profile.maxInFlight(), timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(profile.maxInFlight());
+        }
+    }
+
+    private Scenario next() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.ada.currencyapi.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * What a load-test run does, read from {@code --name=value} arguments. Arguments the harness does not know
+ * are handed to the application, e.g. {@code --currency.upstream.max-requests-per-second=100}.
+ *
+ * @param rps           requests started per second, whatever the response times
+ * @param warmUp        load sent before measuring, lets the JIT, pools and caches settle
+ * @param mix           relative weight of each scenario
+ * @param currencies    currencies registered before the run, /convert picks among them
+ * @param pairs         distinct pairs /api-convert picks among
+ * @param maxInFlight   requests still waiting for a response beyond which new ones are counted as dropped
+ * @param latency       median upstream response time, spread log-normally with the given sigma
+ * @param errorRate     share of upstream calls answered with a 503
+ * @param faultRate     share of upstream calls whose connection is reset
+ */
+public record LoadProfile(int rps, Duration duration, Duration warmUp, Map<Scenario, Integer> mix, int currencies, int pairs,
+                          int maxInFlight, Duration latency, double latencySigma, double errorRate, double faultRate,
+                          long seed, Path report, List<String> applicationArgs) {
+
+    private static final List<String> KNOWN = List.of("rps", "duration", "warm-up", "mix", "currencies", "pairs", "max-in-flight",
+            "upstream-latency", "upstream-latency-sigma", "upstream-error-rate", "upstream-fault-rate", "seed", "report");
+
+    public static LoadProfile parse(String... args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name != null && KNOWN.contains(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        return new LoadProfile(
+                Integer.parseInt(options.getOrDefault("rps", "200")),
+                duration(options.getOrDefault("duration", "60s")),
+                duration(options.getOrDefault("warm-up", "10s")),
+                mix(options.getOrDefault("mix", "convert:40,api-convert:40,list:15,create:5")),
+                Integer.parseInt(options.getOrDefault("currencies", "50")),
+                Integer.parseInt(options.getOrDefault("pairs", "20")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+                duration(options.getOrDefault("upstream-latency", "50ms")),
+                Double.parseDouble(options.getOrDefault("upstream-latency-sigma", "0.5")),
+                Double.parseDouble(options.getOrDefault("upstream-error-rate", "0")),
+                Double.parseDouble(options.getOrDefault("upstream-fault-rate", "0")),
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Path.of(options.getOrDefault("report", "target/load-test/report.json")),
+                List.copyOf(applicationArgs));
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            mix.put(Scenario.of(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return mix;
+    }
+}
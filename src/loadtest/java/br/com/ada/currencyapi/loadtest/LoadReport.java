@@ -0,0 +1,138 @@
+package br.com.ada.currencyapi.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Latencies and outcomes per scenario. A latency runs from when the request was due, not from when it could
+ * be sent, so a stalled application shows up in the percentiles instead of lowering the offered load.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Scenario, Outcomes> scenarios = new EnumMap<>(Scenario.class);
+
+    private final LongAdder dropped = new LongAdder();
+
+    public LoadReport() {
+        for (Scenario scenario : Scenario.values()) {
+            scenarios.put(scenario, new Outcomes());
+        }
+    }
+
+    public void record(Scenario scenario, long latencyNanos, int status) {
+        Outcomes outcomes = scenarios.get(scenario);
+        outcomes.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_MICROS));
+        outcomes.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    public void drop() {
+        dropped.increment();
+    }
+
+    public void write(LoadProfile profile, Duration measured) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("profile", profile(profile));
+        Histogram total = new Histogram(HIGHEST_MICROS, 3);
+        long totalErrors = 0;
+        Map<String, Object> byScenario = new LinkedHashMap<>();
+        for (Map.Entry<Scenario, Outcomes> entry : scenarios.entrySet()) {
+            Outcomes outcomes = entry.getValue();
+            if (outcomes.latencies.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(outcomes.latencies);
+            totalErrors += outcomes.errors();
+            byScenario.put(entry.getKey().label(), summary(outcomes.latencies, outcomes.errors(), measured, statuses(outcomes)));
+        }
+        report.put("scenarios", byScenario);
+        report.put("total", summary(total, totalErrors, measured, null));
+        report.put("dropped", dropped.sum());
+
+        Files.createDirectories(profile.report().toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(profile.report().toFile(), report);
+    }
+
+    private Map<String, Object> profile(LoadProfile profile) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("rps", profile.rps());
+        values.put("durationSeconds", profile.duration().toSeconds());
+        values.put("warmUpSeconds", profile.warmUp().toSeconds());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        profile.mix().forEach((scenario, weight) -> mix.put(scenario.label(), weight));
+        values.put("mix", mix);
+        values.put("currencies", profile.currencies());
+        values.put("pairs", profile.pairs());
+        values.put("upstreamLatencyMillis", profile.latency().toMillis());
+        values.put("upstreamLatencySigma", profile.latencySigma());
+        values.put("upstreamErrorRate", profile.errorRate());
+        values.put("upstreamFaultRate", profile.faultRate());
+        values.put("seed", profile.seed());
+        values.put("applicationArgs", profile.applicationArgs());
+        return values;
+    }
+
+    private Map<String, Object> summary(Histogram latencies, long errors, Duration measured, Map<String, Long> statuses) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", round(latencies.getTotalCount() * 1_000.0 / measured.toMillis()));
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("p50", percentile(latencies, 50.0));
+        millis.put("p95", percentile(latencies, 95.0));
+        millis.put("p99", percentile(latencies, 99.0));
+        millis.put("p999", percentile(latencies, 99.9));
+        millis.put("max", round(latencies.getMaxValue() / 1_000.0));
+        summary.put("latencyMillis", millis);
+        if (statuses != null) {
+            summary.put("statuses", statuses);
+        }
+        return summary;
+    }
+
+    private Map<String, Long> statuses(Outcomes outcomes) {
+        Map<String, Long> statuses = new TreeMap<>();
+        outcomes.statuses.forEach((status, count) -> statuses.put(status == 0 ? "io-error" : String.valueOf(status), count.sum()));
+        return statuses;
+    }
+
+    private BigDecimal percentile(Histogram latencies, double percentile) {
+        return round(latencies.getValueAtPercentile(percentile) / 1_000.0);
+    }
+
+    private BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP);
+    }
+
+    private static final class Outcomes {
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+
+        // 0 stands for a request that never got a response
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private long errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+    }
+}
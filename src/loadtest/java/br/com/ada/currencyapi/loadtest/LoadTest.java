@@ -0,0 +1,72 @@
+package br.com.ada.currencyapi.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.ada.currencyapi.CurrencyApiApplication;
+
+/**
+ * Runs the application against a stubbed upstream, registers the currencies, sends the warm-up load and then
+ * the measured load, and writes the report, e.g.
+ * {@code --rps=500 --duration=2m --mix=api-convert:80,list:20 --upstream-latency=120ms --upstream-error-rate=0.02}.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadProfile.parse(args);
+        try (UpstreamStub upstream = new UpstreamStub(profile)) {
+            String upstreamUrl = upstream.start();
+            try (ConfigurableApplicationContext application = SpringApplication.run(CurrencyApiApplication.class,
+                    applicationArgs(profile, upstreamUrl))) {
+                int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                run(profile, URI.create("http://localhost:" + port));
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(LoadProfile profile, URI base) throws InterruptedException, IOException {
+        try (LoadGenerator generator = new LoadGenerator(profile, base)) {
+            generator.seed();
+            if (!profile.warmUp().isZero()) {
+                generator.run(profile.warmUp(), null);
+                generator.drain(Duration.ofSeconds(30));
+            }
+
+            LoadReport report = new LoadReport();
+            long start = System.nanoTime();
+            generator.run(profile.duration(), report);
+            Duration measured = Duration.ofNanos(System.nanoTime() - start);
+            generator.drain(Duration.ofSeconds(30));
+
+            report.write(profile, measured);
+            System.out.printf("Load test report written to %s%n", profile.report().toAbsolutePath());
+        }
+    }
+
+    // later arguments with the same name replace the defaults, Spring would otherwise join both values
+    private static String[] applicationArgs(LoadProfile profile, String upstreamUrl) {
+        Map<String, String> args = new LinkedHashMap<>();
+        args.put("server.port", "0");
+        args.put("currency.upstream.url", upstreamUrl);
+        args.put("currency.prefetch.warm-up-pairs", "P00-BRL");
+        args.put("currency.history.directory", profile.report().toAbsolutePath().resolveSibling("quote-history").toString());
+        args.put("logging.level.root", "WARN");
+        for (String arg : profile.applicationArgs()) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                args.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return args.entrySet().stream()
+                .map(entry -> "--%s=%s".formatted(entry.getKey(), entry.getValue()))
+                .toArray(String[]::new);
+    }
+}
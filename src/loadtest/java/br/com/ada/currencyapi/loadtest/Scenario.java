@@ -0,0 +1,75 @@
+package br.com.ada.currencyapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * The requests a run mixes, each one builds its next request against the application's base URI.
+ */
+public enum Scenario {
+
+    CONVERT("convert") {
+        @Override
+        HttpRequest request(URI base, LoadProfile profile, RandomGenerator random) {
+            return get(base, "/currency/convert?from=%s&to=BRL&amount=10".formatted(currency(random.nextInt(profile.currencies()))));
+        }
+    },
+    API_CONVERT("api-convert") {
+        @Override
+        HttpRequest request(URI base, LoadProfile profile, RandomGenerator random) {
+            return get(base, "/currency/api-convert?from=P%02d&to=BRL&amount=10".formatted(random.nextInt(profile.pairs())));
+        }
+    },
+    LIST("list") {
+        @Override
+        HttpRequest request(URI base, LoadProfile profile, RandomGenerator random) {
+            return get(base, "/currency");
+        }
+    },
+    CREATE("create") {
+        @Override
+        HttpRequest request(URI base, LoadProfile profile, RandomGenerator random) {
+            return create(base, "N" + CREATED.incrementAndGet());
+        }
+    };
+
+    private static final AtomicLong CREATED = new AtomicLong();
+
+    private final String label;
+
+    Scenario(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    abstract HttpRequest request(URI base, LoadProfile profile, RandomGenerator random);
+
+    static Scenario of(String label) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.label.equals(label))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + label));
+    }
+
+    static String currency(int index) {
+        return "C%03d".formatted(index);
+    }
+
+    static HttpRequest create(URI base, String name) {
+        String body = "{\"name\":\"%s\",\"description\":\"Load test %s\",\"exchanges\":{\"BRL\":1.25,\"USD\":0.25}}".formatted(name, name);
+        return HttpRequest.newBuilder(base.resolve("/currency"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+}
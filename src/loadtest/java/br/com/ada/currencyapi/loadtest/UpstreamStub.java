@@ -0,0 +1,111 @@
+package br.com.ada.currencyapi.loadtest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+/**
+ * Stands in for economia.awesomeapi.com.br: answers {@code /json/last/A-B,C-D} with a quote for every pair,
+ * after a log-normal delay, failing the configured share of calls with a 503 or a reset connection.
+ */
+public class UpstreamStub implements AutoCloseable {
+
+    private static final String PATH = "/json/last/";
+
+    private final WireMockServer server;
+
+    public UpstreamStub(LoadProfile profile) {
+        server = new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(200)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(20)
+                .disableRequestJournal()
+                .extensions(new Quotes(profile)));
+        server.stubFor(get(urlPathMatching(PATH + ".+")).willReturn(aResponse().withTransformers(Quotes.NAME)));
+    }
+
+    public String start() {
+        server.start();
+        return server.baseUrl();
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    private static final class Quotes implements ResponseDefinitionTransformerV2 {
+
+        private static final String NAME = "load-test-quotes";
+
+        private final LoadProfile profile;
+
+        private Quotes(LoadProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            ResponseDefinitionBuilder response = ResponseDefinitionBuilder.like(serveEvent.getResponseDefinition())
+                    .withLogNormalRandomDelay(profile.latency().toMillis(), profile.latencySigma());
+            double outcome = ThreadLocalRandom.current().nextDouble();
+            if (outcome < profile.faultRate()) {
+                return response.withFault(Fault.CONNECTION_RESET_BY_PEER).build();
+            }
+            if (outcome < profile.faultRate() + profile.errorRate()) {
+                return response.withStatus(503).build();
+            }
+            String path = URLDecoder.decode(serveEvent.getRequest().getUrl(), StandardCharsets.UTF_8);
+            return response.withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(body(path.substring(path.indexOf(PATH) + PATH.length())))
+                    .build();
+        }
+
+        private String body(String pairs) {
+            String timestamp = String.valueOf(Instant.now().getEpochSecond());
+            StringJoiner body = new StringJoiner(",", "{", "}");
+            for (String pair : pairs.split(",")) {
+                String[] codes = pair.split("-");
+                if (codes.length != 2) {
+                    continue;
+                }
+                // a stable rate per pair that drifts a little, so refreshed quotes actually move
+                double base = 1 + Math.floorMod(pair.hashCode(), 500) / 100.0;
+                String rate = BigDecimal.valueOf(base * (1 + ThreadLocalRandom.current().nextDouble(-0.001, 0.001)))
+                        .setScale(4, RoundingMode.HALF_UP)
+                        .toPlainString();
+                body.add("\"%s%s\":{\"code\":\"%s\",\"codein\":\"%s\",\"high\":\"%s\",\"bid\":\"%s\",\"timestamp\":\"%s\"}"
+                        .formatted(codes[0], codes[1], codes[0], codes[1], rate, rate, timestamp));
+            }
+            return body.toString();
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package br.com.ada.currencyapi.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
-@FeignClient(name = "awesomeClient", url = "https://economia.awesomeapi.com.br")
+@FeignClient(name = "awesomeClient", url = "${currency.upstream.url:https://economia.awesomeapi.com.br}", configuration = AwesomeClientConfiguration.class)
 public interface AwesomeClient {
 
     @GetMapping("json/last/{currencies}")
-    ResponseEntity<Conversion> get(@PathVariable("currencies") String currencies);
+    QuoteRates getRates(@PathVariable("currencies") String currencies);
 
 }
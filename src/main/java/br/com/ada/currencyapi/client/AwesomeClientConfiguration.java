@@ -0,0 +1,40 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.Objects;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import feign.Client;
+import feign.Request;
+import feign.codec.Decoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.optionals.OptionalDecoder;
+
+// registered only in the awesomeClient Feign context, so it is deliberately not a @Configuration
+public class AwesomeClientConfiguration {
+
+    @Bean
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        return new QuoteRatesDecoder(new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters, customizers))));
+    }
+
+    // the connection pool only exists with currency.upstream.transport=pooled
+    @Bean
+    public Client feignClient(ObjectProvider<UpstreamConnectionPool> connectionPool) {
+        UpstreamConnectionPool pool = connectionPool.getIfAvailable();
+        return Objects.isNull(pool) ? new Client.Default(null, null) : new ApacheHttp5Client(pool.httpClient());
+    }
+
+    @Bean
+    public Request.Options feignOptions(UpstreamProperties properties) {
+        return new Request.Options(properties.getConnectTimeout(), properties.getReadTimeout(), true);
+    }
+}
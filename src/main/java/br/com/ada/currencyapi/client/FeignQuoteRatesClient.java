@@ -0,0 +1,30 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the blocking {@link AwesomeClient} call on the upstream executor.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.upstream.client", havingValue = "feign", matchIfMissing = true)
+public class FeignQuoteRatesClient implements QuoteRatesClient {
+
+    private final AwesomeClient awesomeClient;
+
+    private final Executor upstreamExecutor;
+
+    public FeignQuoteRatesClient(AwesomeClient awesomeClient, @Qualifier("upstreamExecutor") Executor upstreamExecutor) {
+        this.awesomeClient = awesomeClient;
+        this.upstreamExecutor = upstreamExecutor;
+    }
+
+    @Override
+    public CompletableFuture<QuoteRates> getRates(String currencies) {
+        return CompletableFuture.supplyAsync(() -> awesomeClient.getRates(currencies), upstreamExecutor);
+    }
+}
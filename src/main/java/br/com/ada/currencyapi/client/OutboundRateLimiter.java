@@ -0,0 +1,70 @@
+package br.com.ada.currencyapi.client;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import br.com.ada.currencyapi.exception.CurrencyException;
+
+/**
+ * Lock-free limiter that spaces outbound calls evenly (generic cell rate algorithm).
+ * Each caller reserves the next slot with one CAS and is told how long until that slot, so it can delay
+ * its call without holding a thread.
+ */
+public class OutboundRateLimiter {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final long maxWaitNanos;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong theoreticalArrival;
+
+    public OutboundRateLimiter(double permitsPerSecond, int burst, Duration maxWait) {
+        this(permitsPerSecond, burst, maxWait, System::nanoTime);
+    }
+
+    OutboundRateLimiter(double permitsPerSecond, int burst, Duration maxWait, LongSupplier clock) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.clock = clock;
+        this.theoreticalArrival = new AtomicLong(clock.getAsLong() - burstNanos);
+    }
+
+    long reserve() throws CurrencyException {
+        while (true) {
+            long now = clock.getAsLong();
+            long previous = theoreticalArrival.get();
+            long start = Math.max(previous, now - burstNanos);
+            long wait = start - now;
+
+            if (wait > maxWaitNanos) {
+                throw new CurrencyException("Quote provider rate limit exceeded. Try again later.");
+            }
+            if (theoreticalArrival.compareAndSet(previous, start + intervalNanos)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    // takes the next slot only when it is free now, for optional calls that should rather not go out than queue
+    boolean tryReserve() {
+        while (true) {
+            long now = clock.getAsLong();
+            long previous = theoreticalArrival.get();
+            long start = Math.max(previous, now - burstNanos);
+
+            if (start > now) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(previous, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
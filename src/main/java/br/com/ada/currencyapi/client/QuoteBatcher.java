@@ -0,0 +1,222 @@
+package br.com.ada.currencyapi.client;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import br.com.ada.currencyapi.config.HedgingProperties;
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import br.com.ada.currencyapi.exception.QuoteProviderUnavailableException;
+import feign.FeignException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the distinct pairs requested within a short window and fetches them with a single
+ * {@code json/last/USD-BRL,EUR-BRL,...} call, then completes each caller with its own quote.
+ */
+@Slf4j
+@Component
+public class QuoteBatcher {
+
+    private final QuoteRatesClient quoteRatesClient;
+
+    private final OutboundRateLimiter rateLimiter;
+
+    private final UpstreamCircuitBreaker circuitBreaker;
+
+    private final RequestHedger hedger;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSizes;
+
+    private final MeterRegistry registry;
+
+    // pairs the provider has quoted, the only ones with their own upstream.requests timer
+    private final Set<String> quotedPairs = ConcurrentHashMap.newKeySet();
+
+    private Map<String, CompletableFuture<QuoteRate>> pending = new LinkedHashMap<>();
+
+    @Autowired
+    public QuoteBatcher(QuoteRatesClient quoteRatesClient, UpstreamProperties properties, HedgingProperties hedging,
+                        @Qualifier("quoteScheduler") ThreadPoolTaskScheduler quoteScheduler, MeterRegistry registry) {
+        this(quoteRatesClient, new OutboundRateLimiter(properties.getMaxRequestsPerSecond(), properties.getBurst(), properties.getMaxWait()),
+                new UpstreamCircuitBreaker(properties.getCircuitFailureThreshold(), properties.getCircuitOpenDuration(), quoteScheduler.getScheduledExecutor()),
+                new RequestHedger(hedging, quoteScheduler.getScheduledExecutor(), registry),
+                quoteScheduler.getScheduledExecutor(), properties.getBatchWindow(), properties.getMaxBatchSize(), registry);
+    }
+
+    QuoteBatcher(QuoteRatesClient quoteRatesClient, OutboundRateLimiter rateLimiter, UpstreamCircuitBreaker circuitBreaker,
+                 RequestHedger hedger, ScheduledExecutorService scheduler, Duration window, int maxBatchSize, MeterRegistry registry) {
+        this.quoteRatesClient = quoteRatesClient;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.hedger = hedger;
+        this.scheduler = scheduler;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.registry = registry;
+        this.batchSizes = DistributionSummary.builder("upstream.batch.size")
+                .description("Pairs fetched per upstream call")
+                .register(registry);
+        Gauge.builder("upstream.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Quote provider circuit breaker: 0 closed, 1 open, 2 half open")
+                .register(registry);
+    }
+
+    public CompletableFuture<QuoteRate> submit(String pair) {
+        Map<String, CompletableFuture<QuoteRate>> ready = null;
+        CompletableFuture<QuoteRate> quote;
+
+        synchronized (this) {
+            quote = pending.get(pair);
+            if (Objects.nonNull(quote)) {
+                return quote;
+            }
+            quote = new CompletableFuture<>();
+            pending.put(pair, quote);
+
+            if (windowNanos == 0 || pending.size() >= maxBatchSize) {
+                ready = pending;
+                pending = new LinkedHashMap<>();
+            } else if (pending.size() == 1) {
+                Map<String, CompletableFuture<QuoteRate>> batch = pending;
+                scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (Objects.nonNull(ready)) {
+            dispatch(ready);
+        }
+        return quote;
+    }
+
+    private void flush(Map<String, CompletableFuture<QuoteRate>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<QuoteRate>> batch) {
+        if (!circuitBreaker.allowRequest()) {
+            QuoteProviderUnavailableException unavailable = new QuoteProviderUnavailableException(
+                    "Quote provider unavailable. Try again later.");
+            batch.values().forEach(quote -> quote.completeExceptionally(unavailable));
+            return;
+        }
+        try {
+            // wait for the outbound slot on the scheduler instead of parking a thread
+            long waitNanos = rateLimiter.reserve();
+            if (waitNanos > 0) {
+                scheduler.schedule(() -> fetch(batch), waitNanos, TimeUnit.NANOSECONDS);
+            } else {
+                fetch(batch);
+            }
+        } catch (RuntimeException e) {
+            batch.values().forEach(quote -> quote.completeExceptionally(e));
+        }
+    }
+
+    private void fetch(Map<String, CompletableFuture<QuoteRate>> batch) {
+        batchSizes.record(batch.size());
+        long start = System.nanoTime();
+        String currencies = String.join(",", batch.keySet());
+        // a hedge only goes out if an outbound slot is free right away, it never queues behind other calls
+        hedger.call(() -> call(currencies), rateLimiter::tryReserve).whenComplete((quotes, error) -> {
+            if (Objects.isNull(error)) {
+                circuitBreaker.onSuccess();
+                if (Objects.nonNull(quotes)) {
+                    batch.keySet().stream().filter(pair -> Objects.nonNull(quotes.forPair(pair))).forEach(quotedPairs::add);
+                }
+                record(batch, start, "200");
+                batch.forEach((pair, quote) -> quote.complete(Objects.isNull(quotes) ? null : quotes.forPair(pair)));
+                return;
+            }
+            Throwable cause = unwrap(error);
+            int status = statusOf(cause);
+            record(batch, start, status < 0 ? "IO_ERROR" : status == 0 ? "CLIENT_ERROR" : String.valueOf(status));
+            if (isProviderFailure(status)) {
+                circuitBreaker.onFailure(() -> call(currencies).handle((ignored, probeError) ->
+                        Objects.isNull(probeError) || !isProviderFailure(statusOf(unwrap(probeError)))));
+            } else if (status > 0) {
+                circuitBreaker.onSuccess();
+            }
+            if (batch.size() > 1 && status == HttpStatus.NOT_FOUND.value()) {
+                // the upstream rejects the whole list when one pair is unknown, so retry them one by one
+                log.debug("Batch {} rejected by the quote provider, fetching pairs individually", batch.keySet());
+                batch.forEach((pair, quote) -> dispatch(new LinkedHashMap<>(Map.of(pair, quote))));
+                return;
+            }
+            batch.values().forEach(quote -> quote.completeExceptionally(cause));
+        });
+    }
+
+    private CompletableFuture<QuoteRates> call(String currencies) {
+        try {
+            return quoteRatesClient.getRates(currencies);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+    }
+
+    // no answer or a server error, as opposed to the provider rejecting a pair it does not know
+    private static boolean isProviderFailure(int status) {
+        return status < 0 || status >= 500;
+    }
+
+    // HTTP status of a failed upstream call, -1 when no response arrived and 0 for local failures
+    static int statusOf(Throwable error) {
+        if (error instanceof FeignException feignException) {
+            return feignException.status();
+        }
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().value();
+        }
+        if (error instanceof WebClientRequestException) {
+            return -1;
+        }
+        return 0;
+    }
+
+    // pairs never quoted share the "other" tag, so unknown pairs sent by clients cannot add histograms without bound
+    private void record(Map<String, CompletableFuture<QuoteRate>> batch, long start, String status) {
+        long elapsed = System.nanoTime() - start;
+        batch.keySet().forEach(pair -> Timer.builder("upstream.requests")
+                .description("Upstream quote calls per pair, tagged with the HTTP status")
+                .tag("pair", quotedPairs.contains(pair) ? pair : "other")
+                .tag("status", status)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS));
+    }
+}
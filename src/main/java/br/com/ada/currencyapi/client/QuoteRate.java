@@ -0,0 +1,17 @@
+package br.com.ada.currencyapi.client;
+
+import java.math.BigDecimal;
+
+/**
+ * @param stale true when the quote is the last one known before the provider became unavailable
+ */
+public record QuoteRate(BigDecimal high, BigDecimal bid, long timestamp, boolean stale) {
+
+    public QuoteRate(BigDecimal high, BigDecimal bid, long timestamp) {
+        this(high, bid, timestamp, false);
+    }
+
+    public QuoteRate asStale() {
+        return new QuoteRate(high, bid, timestamp, true);
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.Map;
+
+public record QuoteRates(Map<String, QuoteRate> quotes) {
+
+    public QuoteRate forPair(String pair) {
+        return quotes.get(pair.replace("-", ""));
+    }
+}
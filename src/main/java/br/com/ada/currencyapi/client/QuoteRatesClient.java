@@ -0,0 +1,11 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches the latest quotes for a comma separated list of pairs, e.g. {@code USD-BRL,EUR-BRL}.
+ */
+public interface QuoteRatesClient {
+
+    CompletableFuture<QuoteRates> getRates(String currencies);
+}
@@ -0,0 +1,107 @@
+package br.com.ada.currencyapi.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import feign.Response;
+import feign.codec.Decoder;
+
+/**
+ * Streams an awesomeapi {@code json/last} payload and keeps only the numeric fields we use,
+ * reading decimals straight from the parser's char buffer instead of building {@link Quote} strings.
+ */
+public class QuoteRatesDecoder implements Decoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Decoder delegate;
+
+    public QuoteRatesDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        if (type != QuoteRates.class) {
+            return delegate.decode(response, type);
+        }
+        if (Objects.isNull(response.body())) {
+            return new QuoteRates(Map.of());
+        }
+        try (InputStream body = response.body().asInputStream()) {
+            return parse(body);
+        }
+    }
+
+    public static QuoteRates parse(InputStream body) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected an object of quotes");
+            }
+            Map<String, QuoteRate> quotes = new HashMap<>();
+            String key;
+            while (Objects.nonNull(key = parser.nextFieldName())) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    quotes.put(key, readQuote(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new QuoteRates(quotes);
+        }
+    }
+
+    private static QuoteRate readQuote(JsonParser parser) throws IOException {
+        BigDecimal high = null;
+        BigDecimal bid = null;
+        long timestamp = 0;
+        String field;
+        while (Objects.nonNull(field = parser.nextFieldName())) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "high" -> high = decimal(parser, token);
+                case "bid" -> bid = decimal(parser, token);
+                case "timestamp" -> timestamp = longValue(parser, token);
+                default -> parser.skipChildren();
+            }
+        }
+        return new QuoteRate(high, bid, timestamp);
+    }
+
+    private static BigDecimal decimal(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return token.isNumeric() ? parser.getDecimalValue() : null;
+    }
+
+    private static long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return parser.getLongValue();
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            return 0;
+        }
+        char[] chars = parser.getTextCharacters();
+        int end = parser.getTextOffset() + parser.getTextLength();
+        long value = 0;
+        for (int i = parser.getTextOffset(); i < end; i++) {
+            char digit = chars[i];
+            if (digit < '0' || digit > '9') {
+                throw new JsonParseException(parser, "Invalid timestamp");
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.ada.currencyapi.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking quote fetches over Reactor Netty: no thread waits while the upstream responds,
+ * the response is parsed on the event loop with the same streaming decoder the Feign client uses.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.upstream.client", havingValue = "reactive")
+public class ReactiveQuoteRatesClient implements QuoteRatesClient {
+
+    private final WebClient webClient;
+
+    private final String url;
+
+    public ReactiveQuoteRatesClient(WebClient.Builder builder, UpstreamProperties properties) {
+        ConnectionProvider connections = ConnectionProvider.builder("quote-provider")
+                .maxConnections(properties.getMaxConnections())
+                .build();
+        this.webClient = builder
+                // the same timeouts as the Feign client, so a hung provider fails the call and counts against the breaker
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(properties.getConnectTimeout().toMillis()))
+                        .responseTimeout(properties.getReadTimeout())))
+                .build();
+        this.url = properties.getUrl();
+    }
+
+    @Override
+    public CompletableFuture<QuoteRates> getRates(String currencies) {
+        // encoded as a path segment so the pair separator stays a literal comma, as the Feign client sends it
+        URI uri = UriComponentsBuilder.fromHttpUrl(url)
+                .pathSegment("json", "last", currencies)
+                .build()
+                .encode()
+                .toUri();
+        return webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(ReactiveQuoteRatesClient::parse)
+                .toFuture();
+    }
+
+    private static QuoteRates parse(DataBuffer buffer) {
+        try {
+            return QuoteRatesDecoder.parse(buffer.asInputStream(true));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
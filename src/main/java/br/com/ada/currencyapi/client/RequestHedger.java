@@ -0,0 +1,219 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import br.com.ada.currencyapi.config.HedgingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Hedges upstream calls: when a call has not answered by a percentile of recent upstream latencies, an
+ * identical one is sent, the first success completes the caller and the other call is cancelled.
+ * Every call earns a fraction of a hedge, so hedges stay within the budget share of calls.
+ */
+public class RequestHedger {
+
+    // latencies the percentile is read from, and how many are needed before anything is hedged
+    private static final int WINDOW = 1024;
+
+    private static final int MIN_SAMPLES = 32;
+
+    private static final int RECOMPUTE_EVERY = 64;
+
+    // unused budget carried over, bounds the hedges a burst of slow calls can send at once
+    private static final double MAX_TOKENS = 10;
+
+    private final boolean enabled;
+
+    private final double percentile;
+
+    private final double tokensPerCall;
+
+    private final long minDelayNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final long[] latencies = new long[WINDOW];
+
+    private long samples;
+
+    private double tokens;
+
+    // -1 until enough latencies were seen
+    private volatile long delayNanos = -1;
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder won = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    public RequestHedger(HedgingProperties properties, ScheduledExecutorService scheduler, MeterRegistry registry) {
+        this.enabled = properties.isEnabled();
+        this.percentile = Math.min(1, Math.max(0, properties.getPercentile()));
+        this.tokensPerCall = Math.max(0, properties.getBudgetPercent()) / 100;
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.scheduler = scheduler;
+
+        FunctionCounter.builder("upstream.hedges.sent", sent, LongAdder::sum)
+                .description("Second upstream calls sent for a call slower than the hedge delay")
+                .register(registry);
+        FunctionCounter.builder("upstream.hedges.won", won, LongAdder::sum)
+                .description("Hedged calls answered by the second call")
+                .register(registry);
+        FunctionCounter.builder("upstream.hedges.skipped", skipped, LongAdder::sum)
+                .description("Hedges not sent because the budget or the outbound rate limit was used up")
+                .register(registry);
+        TimeGauge.builder("upstream.hedges.delay", this, TimeUnit.NANOSECONDS, hedger -> Math.max(0, hedger.delayNanos))
+                .description("Time after which an unanswered upstream call is hedged")
+                .register(registry);
+    }
+
+    /**
+     * Runs the request, and once more if the first has not answered by the hedge delay and both the budget
+     * and the permit allow it. Fails only when every call that was sent failed, with the first failure.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request, BooleanSupplier permit) {
+        if (!enabled) {
+            return request.get();
+        }
+        earn();
+        Race<T> race = new Race<>();
+        race.start(request, false);
+        long delay = delayNanos;
+        if (delay >= 0 && !race.settled.get()) {
+            scheduler.schedule(() -> hedge(race, request, permit), delay, TimeUnit.NANOSECONDS);
+        }
+        return race.result;
+    }
+
+    private <T> void hedge(Race<T> race, Supplier<CompletableFuture<T>> request, BooleanSupplier permit) {
+        if (race.settled.get()) {
+            return;
+        }
+        if (!spend()) {
+            skipped.increment();
+            return;
+        }
+        if (!permit.getAsBoolean()) {
+            refund();
+            skipped.increment();
+            return;
+        }
+        // the first call may have failed meanwhile and settled the result
+        if (!race.join()) {
+            refund();
+            return;
+        }
+        sent.increment();
+        race.start(request, true);
+    }
+
+    synchronized void record(long latencyNanos) {
+        latencies[(int) (samples % WINDOW)] = latencyNanos;
+        samples++;
+        if (samples == MIN_SAMPLES || (samples > MIN_SAMPLES && samples % RECOMPUTE_EVERY == 0)) {
+            int count = (int) Math.min(samples, WINDOW);
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = Math.max(0, (int) Math.ceil(percentile * count) - 1);
+            delayNanos = Math.max(minDelayNanos, sorted[index]);
+        }
+    }
+
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    private synchronized void earn() {
+        tokens = Math.min(MAX_TOKENS, tokens + tokensPerCall);
+    }
+
+    private synchronized boolean spend() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private synchronized void refund() {
+        tokens = Math.min(MAX_TOKENS, tokens + 1);
+    }
+
+    private final class Race<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final List<CompletableFuture<T>> calls = new CopyOnWriteArrayList<>();
+
+        // calls still running, the result fails when it drops to zero without a success
+        private final AtomicInteger running = new AtomicInteger(1);
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private final long startedAt = System.nanoTime();
+
+        private boolean join() {
+            int current;
+            do {
+                current = running.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!running.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void start(Supplier<CompletableFuture<T>> request, boolean hedge) {
+            CompletableFuture<T> call = invoke(request);
+            calls.add(call);
+            call.whenComplete((value, error) -> {
+                if (Objects.isNull(error)) {
+                    // the other call is cancelled before the caller sees the result
+                    if (settled.compareAndSet(false, true)) {
+                        // one sample per race, from the first call's start: a first call cancelled by a
+                        // winning hedge took at least this long, the hedge's own latency would pull the delay down
+                        record(System.nanoTime() - startedAt);
+                        if (hedge) {
+                            won.increment();
+                        }
+                        calls.stream().filter(other -> other != call).forEach(other -> other.cancel(true));
+                        result.complete(value);
+                    }
+                    return;
+                }
+                if (!(error instanceof CancellationException)) {
+                    failure.compareAndSet(null, error);
+                }
+                if (running.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
+                    result.completeExceptionally(Objects.requireNonNullElse(failure.get(), error));
+                }
+            });
+        }
+
+        private CompletableFuture<T> invoke(Supplier<CompletableFuture<T>> request) {
+            try {
+                return request.get();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.ada.currencyapi.client;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Shares one in-flight upstream call per pair: the first caller fetches, concurrent callers for
+ * the same pair wait on its future and get the same quote or the same failure.
+ */
+@Component
+public class SingleFlightQuoteClient implements MeterBinder {
+
+    private final QuoteBatcher quoteBatcher;
+
+    private final Map<String, CompletableFuture<QuoteRate>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlightQuoteClient(QuoteBatcher quoteBatcher) {
+        this.quoteBatcher = quoteBatcher;
+    }
+
+    public CompletableFuture<QuoteRate> getAsync(String pair) {
+        CompletableFuture<QuoteRate> call = new CompletableFuture<>();
+        CompletableFuture<QuoteRate> existing = inFlight.putIfAbsent(pair, call);
+
+        if (Objects.nonNull(existing)) {
+            coalesced.increment();
+            return existing;
+        }
+
+        calls.increment();
+        quoteBatcher.submit(pair).whenComplete((quote, error) -> {
+            inFlight.remove(pair, call);
+            if (Objects.nonNull(error)) {
+                call.completeExceptionally(error);
+            } else {
+                call.complete(quote);
+            }
+        });
+        return call;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("upstream.calls", calls, LongAdder::sum)
+                .description("QuoteRate fetches handed to the upstream batcher")
+                .register(registry);
+        FunctionCounter.builder("upstream.coalesced", coalesced, LongAdder::sum)
+                .description("QuoteRate fetches that joined an in-flight upstream call")
+                .register(registry);
+    }
+}
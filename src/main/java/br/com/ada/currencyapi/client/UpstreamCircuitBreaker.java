@@ -0,0 +1,90 @@
+package br.com.ada.currencyapi.client;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops calling the quote provider after consecutive failures. While open every call fails fast;
+ * callers never probe themselves, a background check runs after each open interval and closes
+ * the breaker once the provider answers again.
+ */
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    public UpstreamCircuitBreaker(int failureThreshold, Duration openDuration, ScheduledExecutorService scheduler) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.scheduler = scheduler;
+    }
+
+    public boolean allowRequest() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    public void onSuccess() {
+        failures.set(0);
+    }
+
+    /**
+     * @param probe health check run in the background while open, completing with true once the provider is healthy
+     */
+    public void onFailure(Supplier<CompletableFuture<Boolean>> probe) {
+        if (failures.incrementAndGet() >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            log.warn("Quote provider failed {} times in a row, failing fast for {} ms", failureThreshold,
+                    TimeUnit.NANOSECONDS.toMillis(openNanos));
+            scheduleProbe(probe);
+        }
+    }
+
+    private void scheduleProbe(Supplier<CompletableFuture<Boolean>> probe) {
+        scheduler.schedule(() -> probe(probe), openNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void probe(Supplier<CompletableFuture<Boolean>> probe) {
+        state.set(State.HALF_OPEN);
+        CompletableFuture<Boolean> healthy;
+        try {
+            healthy = probe.get();
+        } catch (RuntimeException e) {
+            healthy = CompletableFuture.completedFuture(false);
+        }
+        healthy.whenComplete((result, error) -> {
+            if (Objects.isNull(error) && Boolean.TRUE.equals(result)) {
+                failures.set(0);
+                state.set(State.CLOSED);
+                log.info("Quote provider is healthy again, closing the circuit");
+            } else {
+                state.set(State.OPEN);
+                scheduleProbe(probe);
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package br.com.ada.currencyapi.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keep-alive connections to the quote provider for the Feign client: a bounded Apache HttpClient pool that
+ * asks for gzip responses, with idle and expired connections closed by a periodic sweep. Leases, the time
+ * callers wait for a connection, new connections and the sweep's evictions are exposed as metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.upstream.transport", havingValue = "pooled", matchIfMissing = true)
+public class UpstreamConnectionPool {
+
+    private final PoolingHttpClientConnectionManager connections;
+
+    private final CloseableHttpClient httpClient;
+
+    private final TimeValue idleTimeout;
+
+    private final Timer leases;
+
+    private final Timer leaseTimeouts;
+
+    private final LongAdder opened = new LongAdder();
+
+    private final LongAdder evicted = new LongAdder();
+
+    // null when the sweep is run by the caller
+    private ScheduledFuture<?> sweep;
+
+    @Autowired
+    public UpstreamConnectionPool(UpstreamProperties properties, @Qualifier("quoteScheduler") ThreadPoolTaskScheduler quoteScheduler,
+                                  MeterRegistry registry) {
+        this(properties, registry);
+        Duration period = properties.getConnectionIdleTimeout().dividedBy(2);
+        this.sweep = quoteScheduler.scheduleAtFixedRate(this::evict, Instant.now().plus(period), period);
+    }
+
+    UpstreamConnectionPool(UpstreamProperties properties, MeterRegistry registry) {
+        this.connections = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.getConnectionTimeToLive()))
+                        .build())
+                .build();
+        this.idleTimeout = TimeValue.of(properties.getConnectionIdleTimeout());
+        // content compression is on by default: requests carry Accept-Encoding and gzip bodies are inflated on read
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(new MeteredConnectionManager())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .disableAutomaticRetries()
+                .build();
+
+        this.leases = Timer.builder("upstream.pool.wait")
+                .description("Time Feign calls waited for a pooled connection to the quote provider")
+                .tag("outcome", "leased")
+                .register(registry);
+        this.leaseTimeouts = Timer.builder("upstream.pool.wait")
+                .description("Time Feign calls waited for a pooled connection to the quote provider")
+                .tag("outcome", "timeout")
+                .register(registry);
+        Gauge.builder("upstream.pool.connections", connections, pool -> pool.getTotalStats().getLeased())
+                .description("Pooled connections to the quote provider")
+                .tag("state", "leased")
+                .register(registry);
+        Gauge.builder("upstream.pool.connections", connections, pool -> pool.getTotalStats().getAvailable())
+                .description("Pooled connections to the quote provider")
+                .tag("state", "available")
+                .register(registry);
+        Gauge.builder("upstream.pool.pending", connections, pool -> pool.getTotalStats().getPending())
+                .description("Feign calls waiting for a pooled connection")
+                .register(registry);
+        Gauge.builder("upstream.pool.max", connections, PoolingHttpClientConnectionManager::getMaxTotal)
+                .description("Connections the pool may open to the quote provider")
+                .register(registry);
+        FunctionCounter.builder("upstream.pool.opened", opened, LongAdder::sum)
+                .description("Connections opened to the quote provider, flat while keep-alive works")
+                .register(registry);
+        FunctionCounter.builder("upstream.pool.evictions", evicted, LongAdder::sum)
+                .description("Idle or expired connections closed by the pool sweep")
+                .register(registry);
+    }
+
+    public CloseableHttpClient httpClient() {
+        return httpClient;
+    }
+
+    // evictions are read from the pool before and after the sweep, a connection leased meanwhile can hide one
+    void evict() {
+        int before = connections.getTotalStats().getAvailable();
+        connections.closeExpired();
+        connections.closeIdle(idleTimeout);
+        evicted.add(Math.max(0, before - connections.getTotalStats().getAvailable()));
+    }
+
+    PoolStats stats() {
+        return connections.getTotalStats();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (Objects.nonNull(sweep)) {
+            sweep.cancel(false);
+        }
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    private final class MeteredConnectionManager implements HttpClientConnectionManager {
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            long start = System.nanoTime();
+            LeaseRequest lease = connections.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+
+                @Override
+                public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                    try {
+                        ConnectionEndpoint endpoint = lease.get(timeout);
+                        leases.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return endpoint;
+                    } catch (TimeoutException e) {
+                        leaseTimeouts.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        throw e;
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return lease.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+            connections.release(endpoint, newState, validDuration);
+        }
+
+        // only called for a leased endpoint that has no open connection yet
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+            connections.connect(endpoint, connectTimeout, context);
+            opened.increment();
+        }
+
+        @Override
+        public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+            connections.upgrade(endpoint, context);
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            connections.close(closeMode);
+        }
+
+        @Override
+        public void close() {
+            connections.close();
+        }
+    }
+}
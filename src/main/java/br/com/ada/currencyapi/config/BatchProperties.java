@@ -0,0 +1,15 @@
+package br.com.ada.currencyapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.batch")
+public class BatchProperties {
+
+    // conversions accepted in one batch request, larger batches are rejected before any lookup
+    private int maxSize = 1000;
+}
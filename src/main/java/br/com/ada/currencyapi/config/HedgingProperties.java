@@ -0,0 +1,26 @@
+package br.com.ada.currencyapi.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.hedging")
+public class HedgingProperties {
+
+    // opt-in: every hedge is an extra upstream call, only worth it while the provider's tail is far above its median
+    private boolean enabled = false;
+
+    // share of recent upstream latencies a call may exceed before its hedge goes out
+    private double percentile = 0.95;
+
+    // hedges allowed as a percentage of the upstream calls made
+    private double budgetPercent = 5;
+
+    // hedges never go out sooner than this, however fast the provider has been
+    private Duration minDelay = Duration.ofMillis(10);
+}
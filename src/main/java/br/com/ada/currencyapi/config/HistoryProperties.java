@@ -0,0 +1,28 @@
+package br.com.ada.currencyapi.config;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.history")
+public class HistoryProperties {
+
+    private boolean enabled = true;
+
+    // one append-only file of sealed chunks per pair
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "currency-api", "quote-history");
+
+    // ticks kept in memory per pair before they are sealed and written as one chunk
+    private int chunkSize = 1024;
+
+    // pair files kept open at once, the least recently used one is closed to open another
+    private int maxOpenFiles = 256;
+
+    // ticks waiting for the writer, further ticks are dropped instead of slowing the quote path
+    private int queueCapacity = 10_000;
+}
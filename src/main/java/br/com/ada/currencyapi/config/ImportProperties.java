@@ -0,0 +1,15 @@
+package br.com.ada.currencyapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.import")
+public class ImportProperties {
+
+    // currencies flushed and detached together, keep it a multiple of hibernate.jdbc.batch_size
+    private int chunkSize = 500;
+}
@@ -0,0 +1,17 @@
+package br.com.ada.currencyapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.listing")
+public class ListingProperties {
+
+    // used when a page request does not ask for a size
+    private int pageSize = 100;
+
+    private int maxPageSize = 1000;
+}
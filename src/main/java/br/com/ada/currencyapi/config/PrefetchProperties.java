@@ -0,0 +1,28 @@
+package br.com.ada.currencyapi.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.prefetch")
+public class PrefetchProperties {
+
+    private boolean enabled = true;
+
+    // how many of the most requested pairs are kept refreshed ahead of expiry
+    private int hotPairs = 100;
+
+    private Duration interval = Duration.ofSeconds(10);
+
+    // fetched before the application reports ready, demand is only known once requests arrive
+    private List<String> warmUpPairs = new ArrayList<>();
+
+    private Duration warmUpTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,24 @@
+package br.com.ada.currencyapi.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.quote-cache")
+public class QuoteCacheProperties {
+
+    // quotes younger than this are served without touching the upstream
+    private Duration ttl = Duration.ofSeconds(30);
+
+    // how long past the ttl a quote may still be served while it is refreshed in the background
+    private Duration maxStale = Duration.ofMinutes(5);
+
+    private long maximumSize = 10_000;
+
+    private int refreshThreads = 4;
+}
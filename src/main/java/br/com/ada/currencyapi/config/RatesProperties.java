@@ -0,0 +1,20 @@
+package br.com.ada.currencyapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.rates")
+public class RatesProperties {
+
+    // snapshot keeps every rate in memory and supports cross rates, database looks up direct rates only
+    private Source source = Source.SNAPSHOT;
+
+    public enum Source {
+        SNAPSHOT,
+        DATABASE
+    }
+}
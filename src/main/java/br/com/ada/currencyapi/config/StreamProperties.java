@@ -0,0 +1,19 @@
+package br.com.ada.currencyapi.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.stream")
+public class StreamProperties {
+
+    // comment sent to idle subscribers so proxies keep the connection and dead clients are noticed
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    private int maxPairs = 100;
+}
@@ -0,0 +1,22 @@
+package br.com.ada.currencyapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import br.com.ada.currencyapi.service.ConversionGraph;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.triangulation")
+public class TriangulationProperties {
+
+    private boolean enabled = true;
+
+    private ConversionGraph.Mode mode = ConversionGraph.Mode.FEWEST_HOPS;
+
+    private int maxHops = 4;
+
+    // all-pairs tables grow with the square of the currency count, above this only direct rates are used
+    private int maxCurrencies = 500;
+}
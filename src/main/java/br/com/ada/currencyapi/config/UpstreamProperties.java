@@ -0,0 +1,70 @@
+package br.com.ada.currencyapi.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency.upstream")
+public class UpstreamProperties {
+
+    private String url = "https://economia.awesomeapi.com.br";
+
+    // FEIGN blocks an upstream executor thread per call, REACTIVE uses the non-blocking WebClient
+    private Client client = Client.FEIGN;
+
+    private double maxRequestsPerSecond = 20;
+
+    // requests allowed back to back before the per-second limit kicks in
+    private int burst = 10;
+
+    // callers give up instead of queueing longer than this for an outbound slot
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    // distinct pairs requested within this window are fetched with one call, zero disables batching
+    private Duration batchWindow = Duration.ofMillis(10);
+
+    private int maxBatchSize = 50;
+
+    private int threads = 8;
+
+    // consecutive server errors or timeouts that open the circuit breaker
+    private int circuitFailureThreshold = 5;
+
+    // how long calls fail fast before a background probe checks the provider again
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+
+    // open connections the reactive client and the pooled Feign transport keep to the quote provider, further calls wait for a free one
+    private int maxConnections = 50;
+
+    // POOLED keeps connections alive in an Apache HttpClient pool, DEFAULT opens them with Feign's HttpURLConnection client
+    private Transport transport = Transport.POOLED;
+
+    private int maxConnectionsPerRoute = 50;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    // how long a Feign call waits for a pooled connection before failing
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    // pooled connections unused for this long are closed, as are those older than the time to live
+    private Duration connectionIdleTimeout = Duration.ofSeconds(30);
+
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    public enum Client {
+        FEIGN,
+        REACTIVE
+    }
+
+    public enum Transport {
+        POOLED,
+        DEFAULT
+    }
+}
@@ -1,28 +1,58 @@
 package br.com.ada.currencyapi.controller;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.ada.currencyapi.config.StreamProperties;
+import br.com.ada.currencyapi.domain.BatchConvertCurrencyResponse;
 import br.com.ada.currencyapi.domain.ConvertCurrencyRequest;
 import br.com.ada.currencyapi.domain.ConvertCurrencyResponse;
+import br.com.ada.currencyapi.domain.CurrencyPageResponse;
 import br.com.ada.currencyapi.domain.CurrencyRequest;
 import br.com.ada.currencyapi.domain.CurrencyResponse;
+import br.com.ada.currencyapi.domain.ImportCurrencyResponse;
+import br.com.ada.currencyapi.domain.PatchExchangesRequest;
+import br.com.ada.currencyapi.domain.RateUpdate;
 import br.com.ada.currencyapi.exception.CoinNotFoundException;
 import br.com.ada.currencyapi.exception.CurrencyException;
+import br.com.ada.currencyapi.service.CurrencyCsvReader;
+import br.com.ada.currencyapi.service.CurrencyImporter;
+import br.com.ada.currencyapi.service.CurrencyListCache;
 import br.com.ada.currencyapi.service.CurrencyService;
+import br.com.ada.currencyapi.service.RateStream;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @RestController
@@ -32,9 +62,79 @@ public class CurrencyController {
 
     private final CurrencyService currencyService;
 
+    private final CurrencyImporter currencyImporter;
+
+    private final CurrencyListCache currencyListCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final StreamProperties streamProperties;
+
     @GetMapping
-    public ResponseEntity<List<CurrencyResponse>> get() {
-        return new ResponseEntity<>(currencyService.get(), HttpStatus.OK);
+    public ResponseEntity<byte[]> get(WebRequest webRequest) {
+        CurrencyListCache.Rendered list = currencyListCache.current();
+        boolean gzip = list.gzipSmaller() && acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String eTag = gzip ? list.gzipETag() : list.eTag();
+        // a tag of either encoding still names the current list
+        if (webRequest.checkNotModified(eTag) || webRequest.checkNotModified(gzip ? list.eTag() : list.gzipETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(list.gzip());
+        }
+        return response.body(list.json());
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CurrencyPageResponse> getPage(@RequestParam(name = "after", required = false) Long after,
+                                                        @RequestParam(name = "size", required = false) Integer size) {
+        return new ResponseEntity<>(currencyService.getPage(after, size), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    ObjectWriter writer = objectMapper.writerFor(CurrencyResponse.class)
+                            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                        generator.setRootValueSeparator(null);
+                        currencyService.streamAll(currency -> {
+                            try {
+                                writer.writeValue(generator, currency);
+                                generator.writeRaw('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Server-sent events with the rate of each pair whenever it moves, pairs are given as FROM-TO. A comment goes out
+     * on every heartbeat so proxies keep idle streams open and closed clients are noticed.
+     */
+    @GetMapping(path = "/rates/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RateUpdate>> streamRates(@RequestParam("pairs") List<String> pairs,
+                                                         @RequestParam(name = "source", defaultValue = "QUOTE") RateStream.Source source)
+            throws CurrencyException {
+        Flux<ServerSentEvent<RateUpdate>> updates = currencyService.subscribeRates(source, pairs)
+                .map(update -> ServerSentEvent.builder(update).event("rate").build());
+        Flux<ServerSentEvent<RateUpdate>> heartbeats = Flux.interval(streamProperties.getHeartbeat())
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<RateUpdate>builder().comment("keep-alive").build());
+        return Flux.merge(1, updates, heartbeats);
     }
 
     @GetMapping("/convert")
@@ -43,8 +143,24 @@ public class CurrencyController {
     }
 
     @GetMapping("/api-convert")
-    public ResponseEntity<ConvertCurrencyResponse> convertUsingExternalApi(ConvertCurrencyRequest request) throws CurrencyException {
-        return new ResponseEntity<>(currencyService.convertUsingExternalApi(request), HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<ConvertCurrencyResponse>> convertUsingExternalApi(ConvertCurrencyRequest request) {
+        return currencyService.convertUsingExternalApiAsync(request)
+                .thenApply(response -> ResponseEntity.ok()
+                        .cacheControl(cacheControl(currencyService.quoteFreshness(request, response)))
+                        .body(response));
+    }
+
+    @PostMapping("/convert/batch")
+    public ResponseEntity<List<BatchConvertCurrencyResponse>> convertBatch(@RequestBody List<ConvertCurrencyRequest> requests) {
+        return new ResponseEntity<>(currencyService.convertBatch(requests), HttpStatus.OK);
+    }
+
+    @PostMapping("/api-convert/batch")
+    public CompletableFuture<ResponseEntity<List<BatchConvertCurrencyResponse>>> convertBatchUsingExternalApi(@RequestBody List<ConvertCurrencyRequest> requests) {
+        return currencyService.convertBatchUsingExternalApiAsync(requests)
+                .thenApply(responses -> ResponseEntity.ok()
+                        .cacheControl(cacheControl(currencyService.quoteFreshness(requests, responses)))
+                        .body(responses));
     }
 
     @PostMapping
@@ -53,9 +169,43 @@ public class CurrencyController {
         return new ResponseEntity<>(id, HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportCurrencyResponse> importJson(@RequestBody List<CurrencyRequest> requests) throws CurrencyException {
+        return new ResponseEntity<>(currencyImporter.importCurrencies(requests), HttpStatus.CREATED);
+    }
+
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportCurrencyResponse> importCsv(Reader body) throws CurrencyException {
+        return new ResponseEntity<>(currencyImporter.importCurrencies(CurrencyCsvReader.read(body)), HttpStatus.CREATED);
+    }
+
+    @PatchMapping("/{id}/exchanges")
+    public ResponseEntity<Void> patchExchanges(@PathVariable("id") Long id, @RequestBody PatchExchangesRequest request)
+            throws CoinNotFoundException, CurrencyException {
+        currencyService.patchExchanges(id, request);
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable("id") Long id) {
         currencyService.delete(id);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (Objects.isNull(acceptEncoding)) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private CacheControl cacheControl(Duration freshness) {
+        return freshness.getSeconds() > 0 ? CacheControl.maxAge(freshness).cachePublic() : CacheControl.noCache();
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.ada.currencyapi.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchConvertCurrencyResponse implements Serializable {
+
+    private String from;
+    private String to;
+    private BigDecimal amount;
+    private String error;
+    private Boolean stale;
+
+}
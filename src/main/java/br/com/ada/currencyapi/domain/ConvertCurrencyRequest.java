@@ -8,6 +8,7 @@ import lombok.Setter;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -20,4 +21,7 @@ public class ConvertCurrencyRequest implements Serializable {
     private String to;
     private BigDecimal amount;
 
+    // converts with the quote history at this instant instead of the current rates
+    private Instant at;
+
 }
\ No newline at end of file
@@ -17,4 +17,7 @@ import java.math.BigDecimal;
 public class ConvertCurrencyResponse implements Serializable {
 
     BigDecimal amount;
+
+    // set when the amount was computed from the last known quote because the provider is unavailable
+    boolean stale;
 }
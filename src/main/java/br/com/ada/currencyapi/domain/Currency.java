@@ -4,14 +4,25 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Map;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import br.com.ada.currencyapi.repository.CurrencyEntityListener;
+
 import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -24,6 +35,9 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "currency")
+@EntityListeners(CurrencyEntityListener.class)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_currency_name", columnNames = "name"))
 public class Currency implements Serializable {
 
     // id -> 1
@@ -32,15 +46,19 @@ public class Currency implements Serializable {
     // {USD: 5, BRL: 10, EUR: 15}
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_seq")
+    @SequenceGenerator(name = "currency_seq", sequenceName = "currency_seq", allocationSize = 500)
     private Long id;
     private String name;
     private String description;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "currency-exchanges")
     @CollectionTable(name = "exchanges",
-            joinColumns = {@JoinColumn(name = "currency_id", referencedColumnName = "id")})
+            joinColumns = {@JoinColumn(name = "currency_id", referencedColumnName = "id")},
+            indexes = {@Index(name = "ix_exchanges_currency_id_name", columnList = "currency_id, currency_name", unique = true)})
     @MapKeyColumn(name = "currency_name")
+    @Column(name = "exchanges")
     private Map<String, BigDecimal> exchanges;
 
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package br.com.ada.currencyapi.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyPageResponse {
+
+    private List<CurrencyResponse> items;
+
+    // pass as "after" to read the following page, null on the last page
+    private Long next;
+}
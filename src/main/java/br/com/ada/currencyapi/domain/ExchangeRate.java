@@ -0,0 +1,90 @@
+package br.com.ada.currencyapi.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Read model of the {@link Currency} exchanges keyed by pair, so a conversion is a single primary key lookup.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@IdClass(ExchangeRate.Key.class)
+@Table(name = "exchange_rate", indexes = @Index(name = "ix_exchange_rate_currency_id", columnList = "currency_id"))
+public class ExchangeRate implements Persistable<ExchangeRate.Key>, Serializable {
+
+    @Id
+    @Column(name = "from_code")
+    private String fromCode;
+
+    @Id
+    @Column(name = "to_code")
+    private String toCode;
+
+    // owning currency, lets a delete remove its rows without loading them
+    @Column(name = "currency_id", nullable = false)
+    private Long currencyId;
+
+    private BigDecimal rate;
+
+    // the ids are assigned, so without this flag save would merge and select every row before inserting it
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean fresh = true;
+
+    @Builder
+    public ExchangeRate(String fromCode, String toCode, Long currencyId, BigDecimal rate) {
+        this.fromCode = fromCode;
+        this.toCode = toCode;
+        this.currencyId = currencyId;
+        this.rate = rate;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(fromCode, toCode);
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        fresh = false;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        private String fromCode;
+
+        private String toCode;
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.ada.currencyapi.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCurrencyResponse {
+
+    private int imported;
+
+    // names already stored or repeated in the payload, they are skipped
+    private List<String> duplicates;
+}
@@ -0,0 +1,26 @@
+package br.com.ada.currencyapi.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatchExchangesRequest implements Serializable {
+
+    // rates to add or overwrite, keyed by target currency
+    private HashMap<String, BigDecimal> upsert;
+
+    private HashSet<String> remove;
+
+}
@@ -0,0 +1,24 @@
+package br.com.ada.currencyapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateUpdate {
+
+    private String pair;
+
+    private BigDecimal rate;
+
+    // epoch seconds of the quote, or of the local change
+    private long timestamp;
+}
@@ -0,0 +1,8 @@
+package br.com.ada.currencyapi.exception;
+
+public class QuoteProviderUnavailableException extends CurrencyException {
+
+    public QuoteProviderUnavailableException(String message) {
+        super(message);
+    }
+}
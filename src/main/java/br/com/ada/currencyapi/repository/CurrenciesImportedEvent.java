@@ -0,0 +1,4 @@
+package br.com.ada.currencyapi.repository;
+
+public record CurrenciesImportedEvent(int count) {
+}
@@ -0,0 +1,4 @@
+package br.com.ada.currencyapi.repository;
+
+public record CurrencyChangedEvent(Long id, boolean removed) {
+}
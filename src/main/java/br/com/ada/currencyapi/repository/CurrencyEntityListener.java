@@ -0,0 +1,54 @@
+package br.com.ada.currencyapi.repository;
+
+import java.util.function.Supplier;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.ada.currencyapi.domain.Currency;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+public class CurrencyEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public CurrencyEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Runs a bulk write without one event per row, the caller publishes a single {@link CurrenciesImportedEvent}.
+     * Everything written has to be flushed before {@code work} returns.
+     */
+    public static <T> T muted(Supplier<T> work) {
+        TransactionSynchronizationManager.bindResource(CurrencyEntityListener.class, Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(CurrencyEntityListener.class);
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Currency currency) {
+        if (isMuted()) {
+            return;
+        }
+        publisher.publishEvent(new CurrencyChangedEvent(currency.getId(), false));
+    }
+
+    @PostRemove
+    public void onRemove(Currency currency) {
+        if (isMuted()) {
+            return;
+        }
+        publisher.publishEvent(new CurrencyChangedEvent(currency.getId(), true));
+    }
+
+    private static boolean isMuted() {
+        return TransactionSynchronizationManager.hasResource(CurrencyEntityListener.class);
+    }
+}
@@ -1,11 +1,75 @@
 package br.com.ada.currencyapi.repository;
 
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import br.com.ada.currencyapi.domain.Currency;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 public interface CurrencyRepository extends JpaRepository<Currency, Long> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Currency findByName(String name);
+
+    @Query("select c.name from Currency c where c.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // keyset page, the primary key index serves both the seek and the order
+    List<Label> findByIdGreaterThanOrderById(Long id, Limit limit);
+
+    // must be consumed inside a transaction, rows are fetched from the open cursor as the stream advances
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c.id as id, c.name as name from Currency c order by c.id")
+    Stream<Label> streamAllLabels();
+
+    @EntityGraph(attributePaths = "exchanges")
+    @Query("select c from Currency c")
+    List<Currency> findAllWithExchanges();
+
+    @EntityGraph(attributePaths = "exchanges")
+    Optional<Currency> findWithExchangesById(Long id);
+
+    // serializes exchange updates of one currency, the exchanges collection itself is left unloaded
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Currency> findLockedById(Long id);
+
+    // the statements below touch single exchange rows, a JPA update would rewrite the whole collection;
+    // the declared table space limits cache invalidation to the exchanges collection region
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "exchanges"))
+    @Query(value = "update exchanges set exchanges = :rate where currency_id = :id and currency_name = :code", nativeQuery = true)
+    int updateExchange(@Param("id") Long id, @Param("code") String code, @Param("rate") BigDecimal rate);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "exchanges"))
+    @Query(value = "insert into exchanges (currency_id, currency_name, exchanges) values (:id, :code, :rate)", nativeQuery = true)
+    int insertExchange(@Param("id") Long id, @Param("code") String code, @Param("rate") BigDecimal rate);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "exchanges"))
+    @Query(value = "delete from exchanges where currency_id = :id and currency_name in (:codes)", nativeQuery = true)
+    int deleteExchanges(@Param("id") Long id, @Param("codes") Collection<String> codes);
+
+    interface Label {
+
+        Long getId();
+
+        String getName();
+    }
 }
@@ -0,0 +1,44 @@
+package br.com.ada.currencyapi.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import br.com.ada.currencyapi.domain.ExchangeRate;
+import jakarta.persistence.QueryHint;
+
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, ExchangeRate.Key> {
+
+    // the currency row tells an unknown coin apart from a missing exchange in the same round trip
+    @Query("select c.id as currencyId, r.rate as rate from Currency c "
+            + "left join ExchangeRate r on r.fromCode = c.name and r.toCode = :toCode "
+            + "where c.name = :fromCode")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<RateLookup> findRate(@Param("fromCode") String fromCode, @Param("toCode") String toCode);
+
+    @Modifying
+    @Query("update ExchangeRate r set r.rate = :rate where r.fromCode = :fromCode and r.toCode = :toCode")
+    int updateRate(@Param("fromCode") String fromCode, @Param("toCode") String toCode, @Param("rate") BigDecimal rate);
+
+    @Modifying
+    @Query("delete from ExchangeRate r where r.fromCode = :fromCode and r.toCode in :toCodes")
+    int deleteRates(@Param("fromCode") String fromCode, @Param("toCodes") Collection<String> toCodes);
+
+    @Modifying
+    @Query("delete from ExchangeRate r where r.currencyId = :currencyId")
+    int deleteByCurrencyId(@Param("currencyId") Long currencyId);
+
+    interface RateLookup {
+
+        Long getCurrencyId();
+
+        BigDecimal getRate();
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.ada.currencyapi.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+public record ExchangesChangedEvent(Long id, Map<String, BigDecimal> upserted, Set<String> removed) {
+}
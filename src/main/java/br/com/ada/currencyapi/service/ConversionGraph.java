@@ -0,0 +1,292 @@
+package br.com.ada.currencyapi.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * All-pairs cross rates between every known currency code, precomputed from the registered exchanges
+ * and their inverses so that an indirect conversion is a single array lookup.
+ */
+public final class ConversionGraph {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    public enum Mode {
+        FEWEST_HOPS,
+        BEST_RATE
+    }
+
+    private final Mode mode;
+    private final int maxHops;
+    private final Map<String, Integer> index;
+    private final int size;
+    private final byte[] hops;
+    private final BigDecimal[] rates;
+
+    private ConversionGraph(Mode mode, int maxHops, Map<String, Integer> index, int size, byte[] hops, BigDecimal[] rates) {
+        this.mode = mode;
+        this.maxHops = maxHops;
+        this.index = index;
+        this.size = size;
+        this.hops = hops;
+        this.rates = rates;
+    }
+
+    public static ConversionGraph build(RateMatrix matrix, Mode mode, int maxHops) {
+        Map<String, Integer> index = new HashMap<>();
+        List<Map<Integer, BigDecimal>> edges = edges(matrix.rows(), index);
+        int size = index.size();
+        byte[] hops = new byte[size * size];
+        BigDecimal[] rates = new BigDecimal[size * size];
+
+        for (int source = 0; source < size; source++) {
+            if (mode == Mode.FEWEST_HOPS) {
+                fewestHops(source, size, edges, maxHops, hops, rates);
+            } else {
+                bestRate(source, size, edges, maxHops, hops, rates);
+            }
+        }
+        return new ConversionGraph(mode, maxHops, Map.copyOf(index), size, hops, rates);
+    }
+
+    public BigDecimal rate(String from, String to) {
+        Integer source = Objects.isNull(from) ? null : index.get(from);
+        Integer target = Objects.isNull(to) ? null : index.get(to);
+        if (Objects.isNull(source) || Objects.isNull(target)) {
+            return null;
+        }
+        return rates[source * size + target];
+    }
+
+    public int hops(String from, String to) {
+        Integer source = Objects.isNull(from) ? null : index.get(from);
+        Integer target = Objects.isNull(to) ? null : index.get(to);
+        return Objects.isNull(source) || Objects.isNull(target) ? 0 : hops[source * size + target];
+    }
+
+    /**
+     * Adds a newly registered currency by pivoting every existing path through it, which is exact for
+     * fewest-hops paths when all new edges touch that currency. Anything else falls back to a full all-pairs
+     * build; a changed rate of a currency that is already known goes through {@link #withChangedRates}.
+     */
+    public ConversionGraph withCurrency(RateMatrix previous, RateMatrix next, RateMatrix.Row row) {
+        boolean replacesInverse = row.exchanges().keySet().stream()
+                .anyMatch(target -> Objects.nonNull(previous.rate(target, row.name())));
+        if (mode != Mode.FEWEST_HOPS || previous.contains(row.name()) || replacesInverse) {
+            return build(next, mode, maxHops);
+        }
+
+        Map<String, Integer> grownIndex = new HashMap<>(index);
+        assign(grownIndex, row.name());
+        row.exchanges().keySet().forEach(code -> assign(grownIndex, code));
+        int grownSize = grownIndex.size();
+        byte[] grownHops = new byte[grownSize * grownSize];
+        BigDecimal[] grownRates = new BigDecimal[grownSize * grownSize];
+        for (int source = 0; source < size; source++) {
+            System.arraycopy(hops, source * size, grownHops, source * grownSize, size);
+            System.arraycopy(rates, source * size, grownRates, source * grownSize, size);
+        }
+
+        int pivot = grownIndex.get(row.name());
+        Map<Integer, BigDecimal> outgoing = new HashMap<>();
+        Map<Integer, BigDecimal> incoming = new HashMap<>();
+        row.exchanges().forEach((code, rate) -> {
+            if (Objects.isNull(code) || Objects.isNull(rate) || rate.signum() <= 0 || code.equals(row.name())) {
+                return;
+            }
+            outgoing.put(grownIndex.get(code), rate);
+            incoming.put(grownIndex.get(code), BigDecimal.ONE.divide(rate, PRECISION));
+        });
+
+        // shortest paths into and out of the pivot use only old edges before reaching it
+        incoming.forEach((from, rate) -> {
+            for (int source = 0; source < grownSize; source++) {
+                int viaHops = source == from ? 1 : grownHops[source * grownSize + from] + 1;
+                if (source != pivot && (source == from || grownHops[source * grownSize + from] > 0)) {
+                    BigDecimal viaRate = source == from ? rate : grownRates[source * grownSize + from].multiply(rate, PRECISION);
+                    relax(grownHops, grownRates, source * grownSize + pivot, viaHops, viaRate);
+                }
+            }
+        });
+        outgoing.forEach((to, rate) -> {
+            for (int target = 0; target < grownSize; target++) {
+                int viaHops = target == to ? 1 : grownHops[to * grownSize + target] + 1;
+                if (target != pivot && (target == to || grownHops[to * grownSize + target] > 0)) {
+                    BigDecimal viaRate = target == to ? rate : rate.multiply(grownRates[to * grownSize + target], PRECISION);
+                    relax(grownHops, grownRates, pivot * grownSize + target, viaHops, viaRate);
+                }
+            }
+        });
+
+        for (int source = 0; source < grownSize; source++) {
+            int toPivot = grownHops[source * grownSize + pivot];
+            if (source == pivot || toPivot == 0) {
+                continue;
+            }
+            for (int target = 0; target < grownSize; target++) {
+                int fromPivot = grownHops[pivot * grownSize + target];
+                if (target == pivot || target == source || fromPivot == 0) {
+                    continue;
+                }
+                relax(grownHops, grownRates, source * grownSize + target, toPivot + fromPivot,
+                        grownRates[source * grownSize + pivot].multiply(grownRates[pivot * grownSize + target], PRECISION));
+            }
+        }
+        return new ConversionGraph(mode, maxHops, Map.copyOf(grownIndex), grownSize, grownHops, grownRates);
+    }
+
+    /**
+     * Updates the paths after the rates of an already known currency changed. Every changed edge starts at that
+     * currency or at a code whose rate changed, so a source that could not reach one of them before the change
+     * keeps its row; only the rows of the sources that could are searched again.
+     */
+    public ConversionGraph withChangedRates(RateMatrix next, RateMatrix.Row previous, RateMatrix.Row row) {
+        Map<String, Integer> nextIndex = new HashMap<>(index);
+        List<Map<Integer, BigDecimal>> edges = edges(next.rows(), nextIndex);
+        if (nextIndex.size() != size) {
+            return build(next, mode, maxHops);
+        }
+
+        List<Integer> touched = new ArrayList<>();
+        touched.add(index.get(row.name()));
+        Set<String> codes = new HashSet<>(previous.exchanges().keySet());
+        codes.addAll(row.exchanges().keySet());
+        codes.forEach(code -> {
+            if (Objects.nonNull(code) && !Objects.equals(previous.exchanges().get(code), row.exchanges().get(code))) {
+                touched.add(index.get(code));
+            }
+        });
+
+        byte[] nextHops = hops.clone();
+        BigDecimal[] nextRates = rates.clone();
+        for (int source = 0; source < size; source++) {
+            if (!reaches(source, touched)) {
+                continue;
+            }
+            Arrays.fill(nextHops, source * size, (source + 1) * size, (byte) 0);
+            Arrays.fill(nextRates, source * size, (source + 1) * size, null);
+            if (mode == Mode.FEWEST_HOPS) {
+                fewestHops(source, size, edges, maxHops, nextHops, nextRates);
+            } else {
+                bestRate(source, size, edges, maxHops, nextHops, nextRates);
+            }
+        }
+        return new ConversionGraph(mode, maxHops, index, size, nextHops, nextRates);
+    }
+
+    // fewest-hops rows hold the shortest distance, a best-rate row only tells that the node is within maxHops
+    private boolean reaches(int source, List<Integer> nodes) {
+        for (int node : nodes) {
+            int distance = hops[source * size + node];
+            if (source == node || (distance > 0 && (mode == Mode.BEST_RATE || distance < maxHops))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void relax(byte[] hops, BigDecimal[] rates, int cell, int candidateHops, BigDecimal candidateRate) {
+        if (candidateHops <= maxHops && (hops[cell] == 0 || candidateHops < hops[cell])) {
+            hops[cell] = (byte) candidateHops;
+            rates[cell] = candidateRate;
+        }
+    }
+
+    private static List<Map<Integer, BigDecimal>> edges(List<RateMatrix.Row> rows, Map<String, Integer> index) {
+        rows.forEach(row -> {
+            assign(index, row.name());
+            row.exchanges().keySet().forEach(code -> assign(index, code));
+        });
+
+        List<Map<Integer, BigDecimal>> edges = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            edges.add(new HashMap<>());
+        }
+        rows.forEach(row -> row.exchanges().forEach((code, rate) -> {
+            if (Objects.nonNull(code) && Objects.nonNull(rate) && rate.signum() > 0 && !code.equals(row.name())) {
+                edges.get(index.get(row.name())).put(index.get(code), rate);
+            }
+        }));
+        // a registered rate always wins over the inverse of the opposite rate
+        rows.forEach(row -> row.exchanges().forEach((code, rate) -> {
+            if (Objects.nonNull(code) && Objects.nonNull(rate) && rate.signum() > 0 && !code.equals(row.name())) {
+                edges.get(index.get(code)).putIfAbsent(index.get(row.name()), BigDecimal.ONE.divide(rate, PRECISION));
+            }
+        }));
+        return edges;
+    }
+
+    private static void assign(Map<String, Integer> index, String code) {
+        if (Objects.nonNull(code)) {
+            index.putIfAbsent(code, index.size());
+        }
+    }
+
+    private static void fewestHops(int source, int size, List<Map<Integer, BigDecimal>> edges, int maxHops,
+                                   byte[] hops, BigDecimal[] rates) {
+        int row = source * size;
+        BigDecimal[] reached = new BigDecimal[size];
+        int[] depth = new int[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reached[source] = BigDecimal.ONE;
+        queue.add(source);
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (depth[node] == maxHops) {
+                continue;
+            }
+            for (Map.Entry<Integer, BigDecimal> edge : edges.get(node).entrySet()) {
+                int next = edge.getKey();
+                if (Objects.isNull(reached[next])) {
+                    reached[next] = reached[node].multiply(edge.getValue(), PRECISION);
+                    depth[next] = depth[node] + 1;
+                    hops[row + next] = (byte) depth[next];
+                    rates[row + next] = reached[next];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static void bestRate(int source, int size, List<Map<Integer, BigDecimal>> edges, int maxHops,
+                                 byte[] hops, BigDecimal[] rates) {
+        boolean[] onPath = new boolean[size];
+        onPath[source] = true;
+        extend(source, BigDecimal.ONE, 0, source * size, edges, maxHops, onPath, hops, rates);
+    }
+
+    // depth-first over simple paths only: a path that revisits a currency could loop through inconsistent
+    // reciprocal rates and inflate the result, so every currency appears on a path at most once
+    private static void extend(int node, BigDecimal rate, int depth, int row, List<Map<Integer, BigDecimal>> edges,
+                               int maxHops, boolean[] onPath, byte[] hops, BigDecimal[] rates) {
+        if (depth == maxHops) {
+            return;
+        }
+        for (Map.Entry<Integer, BigDecimal> edge : edges.get(node).entrySet()) {
+            int target = edge.getKey();
+            if (onPath[target]) {
+                continue;
+            }
+            BigDecimal candidate = rate.multiply(edge.getValue(), PRECISION);
+            int cell = row + target;
+            int order = Objects.isNull(rates[cell]) ? 1 : candidate.compareTo(rates[cell]);
+            if (order > 0 || (order == 0 && depth + 1 < hops[cell])) {
+                hops[cell] = (byte) (depth + 1);
+                rates[cell] = candidate;
+            }
+            onPath[target] = true;
+            extend(target, candidate, depth + 1, row, edges, maxHops, onPath, hops, rates);
+            onPath[target] = false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.ada.currencyapi.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import br.com.ada.currencyapi.domain.CurrencyRequest;
+import br.com.ada.currencyapi.exception.CurrencyException;
+
+/**
+ * Reads {@code name,description,exchanges} lines, exchanges being {@code CODE:rate} pairs separated by {@code ;},
+ * e.g. {@code USD,"Dollar, US",BRL:5.10;EUR:0.92}. A first line starting with {@code name} is taken as header.
+ */
+public final class CurrencyCsvReader {
+
+    private CurrencyCsvReader() {
+    }
+
+    public static List<CurrencyRequest> read(Reader reader) throws CurrencyException {
+        List<CurrencyRequest> requests = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        try {
+            String line;
+            int number = 0;
+            while ((line = lines.readLine()) != null) {
+                number++;
+                if (line.isBlank() || (number == 1 && line.regionMatches(true, 0, "name", 0, 4))) {
+                    continue;
+                }
+                requests.add(parse(line, number));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return requests;
+    }
+
+    private static CurrencyRequest parse(String line, int number) {
+        List<String> fields = split(line, number);
+        if (fields.isEmpty() || fields.size() > 3 || fields.get(0).isBlank()) {
+            throw new CurrencyException(String.format("Invalid CSV line %d", number));
+        }
+        HashMap<String, BigDecimal> exchanges = new HashMap<>();
+        if (fields.size() == 3 && !fields.get(2).isBlank()) {
+            for (String exchange : fields.get(2).split(";")) {
+                int separator = exchange.indexOf(':');
+                if (separator < 1) {
+                    throw new CurrencyException(String.format("Invalid exchange '%s' on CSV line %d", exchange, number));
+                }
+                try {
+                    exchanges.put(exchange.substring(0, separator).trim(), new BigDecimal(exchange.substring(separator + 1).trim()));
+                } catch (NumberFormatException e) {
+                    throw new CurrencyException(String.format("Invalid exchange '%s' on CSV line %d", exchange, number));
+                }
+            }
+        }
+        return CurrencyRequest.builder()
+                .name(fields.get(0).trim())
+                .description(fields.size() > 1 ? fields.get(1) : null)
+                .exchanges(exchanges)
+                .build();
+    }
+
+    private static List<String> split(String line, int number) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new CurrencyException(String.format("Unterminated quote on CSV line %d", number));
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.ada.currencyapi.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.ada.currencyapi.config.ImportProperties;
+import br.com.ada.currencyapi.domain.Currency;
+import br.com.ada.currencyapi.domain.CurrencyRequest;
+import br.com.ada.currencyapi.domain.ExchangeRate;
+import br.com.ada.currencyapi.domain.ImportCurrencyResponse;
+import br.com.ada.currencyapi.exception.CurrencyException;
+import br.com.ada.currencyapi.repository.CurrenciesImportedEvent;
+import br.com.ada.currencyapi.repository.CurrencyEntityListener;
+import br.com.ada.currencyapi.repository.CurrencyRepository;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads reference data in chunks: one duplicate check per chunk, batched inserts, and a persistence context
+ * that is cleared after every chunk so memory does not grow with the payload.
+ */
+@Slf4j
+@Service
+public class CurrencyImporter {
+
+    private final CurrencyRepository currencyRepository;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final ImportProperties properties;
+
+    public CurrencyImporter(CurrencyRepository currencyRepository, EntityManager entityManager,
+                            ApplicationEventPublisher publisher, ImportProperties properties) {
+        this.currencyRepository = currencyRepository;
+        this.entityManager = entityManager;
+        this.publisher = publisher;
+        this.properties = properties;
+    }
+
+    @Transactional
+    public ImportCurrencyResponse importCurrencies(List<CurrencyRequest> requests) throws CurrencyException {
+        Map<String, CurrencyRequest> unique = new LinkedHashMap<>();
+        List<String> duplicates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CurrencyRequest request = requests.get(i);
+            if (Objects.isNull(request.getName()) || request.getName().isBlank()) {
+                throw new CurrencyException(String.format("Coin name is required, entry %d", i + 1));
+            }
+            if (Objects.nonNull(unique.putIfAbsent(request.getName(), request))) {
+                duplicates.add(request.getName());
+            }
+        }
+
+        int imported = CurrencyEntityListener.muted(() -> persist(List.copyOf(unique.values()), duplicates));
+        if (imported > 0) {
+            publisher.publishEvent(new CurrenciesImportedEvent(imported));
+        }
+        log.info("Imported {} currencies, skipped {} duplicates", imported, duplicates.size());
+
+        return ImportCurrencyResponse.builder()
+                .imported(imported)
+                .duplicates(duplicates)
+                .build();
+    }
+
+    private int persist(List<CurrencyRequest> requests, List<String> duplicates) {
+        // a bulk load would only flush the second-level cache of the entries actually being read
+        entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int imported = 0;
+        for (int start = 0; start < requests.size(); start += chunkSize) {
+            List<CurrencyRequest> chunk = requests.subList(start, Math.min(start + chunkSize, requests.size()));
+            Set<String> existing = new HashSet<>(currencyRepository.findExistingNames(chunk.stream()
+                    .map(CurrencyRequest::getName)
+                    .toList()));
+
+            for (CurrencyRequest request : chunk) {
+                if (existing.contains(request.getName())) {
+                    duplicates.add(request.getName());
+                    continue;
+                }
+                Currency currency = Currency.builder()
+                        .name(request.getName())
+                        .description(request.getDescription())
+                        .exchanges(request.getExchanges())
+                        .build();
+                entityManager.persist(currency);
+                if (Objects.nonNull(request.getExchanges())) {
+                    request.getExchanges().forEach((code, rate) -> entityManager.persist(ExchangeRate.builder()
+                            .fromCode(currency.getName())
+                            .toCode(code)
+                            .currencyId(currency.getId())
+                            .rate(rate)
+                            .build()));
+                }
+                imported++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return imported;
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.ada.currencyapi.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the currency list rendered as JSON bytes, plain and gzipped, for the current {@link CurrencyListVersion}.
+ * The list is read and serialized once per version, requests in between only hand out the same arrays.
+ * The ETag is a digest of the JSON, so every instance and every restart serving the same list hands out the same tag.
+ */
+@Slf4j
+@Component
+public class CurrencyListCache {
+
+    private final CurrencyService currencyService;
+
+    private final CurrencyListVersion listVersion;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Versioned rendered;
+
+    public CurrencyListCache(CurrencyService currencyService, CurrencyListVersion listVersion, ObjectMapper objectMapper) {
+        this.currencyService = currencyService;
+        this.listVersion = listVersion;
+        this.objectMapper = objectMapper;
+    }
+
+    public Rendered current() {
+        Versioned current = rendered;
+        if (Objects.nonNull(current) && current.version() == listVersion.current()) {
+            return current.rendered();
+        }
+        synchronized (this) {
+            // the version is taken before the list is read, a concurrent change can only pair an older version with
+            // newer data, which is rendered again on the next request
+            long version = listVersion.current();
+            current = rendered;
+            if (Objects.isNull(current) || current.version() != version) {
+                current = new Versioned(version, render());
+                rendered = current;
+            }
+            return current.rendered();
+        }
+    }
+
+    private Rendered render() {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(currencyService.get());
+            byte[] gzip = gzip(json);
+            String eTag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            log.debug("Rendered currency list {}: {} bytes, {} gzipped", eTag, json.length, gzip.length);
+            return new Rendered(eTag, json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private record Versioned(long version, Rendered rendered) {
+    }
+
+    /**
+     * Shared between requests, the arrays must not be modified.
+     */
+    public record Rendered(String eTag, byte[] json, byte[] gzip) {
+
+        // tiny lists can grow when compressed
+        public boolean gzipSmaller() {
+            return gzip.length < json.length;
+        }
+
+        // the gzip body is a different representation and gets its own strong tag
+        public String gzipETag() {
+            return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+        }
+    }
+}
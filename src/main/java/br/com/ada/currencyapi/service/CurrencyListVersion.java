@@ -0,0 +1,33 @@
+package br.com.ada.currencyapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import br.com.ada.currencyapi.repository.CurrenciesImportedEvent;
+import br.com.ada.currencyapi.repository.CurrencyChangedEvent;
+
+/**
+ * Versions the currency list of this instance, so it is rendered again only after a committed create, update,
+ * delete or import. The version is local; the ETag clients see is derived from the rendered list.
+ */
+@Component
+public class CurrencyListVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCurrencyChanged(CurrencyChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCurrenciesImported(CurrenciesImportedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+}
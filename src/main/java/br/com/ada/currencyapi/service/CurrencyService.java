@@ -1,43 +1,124 @@
 package br.com.ada.currencyapi.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import br.com.ada.currencyapi.client.AwesomeClient;
+import br.com.ada.currencyapi.client.QuoteRate;
 import br.com.ada.currencyapi.domain.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import reactor.core.publisher.Flux;
+
+import br.com.ada.currencyapi.config.BatchProperties;
+import br.com.ada.currencyapi.config.ListingProperties;
+import br.com.ada.currencyapi.config.RatesProperties;
 import br.com.ada.currencyapi.exception.CoinNotFoundException;
 import br.com.ada.currencyapi.exception.CurrencyException;
 import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.repository.ExchangeRateRepository;
+import br.com.ada.currencyapi.repository.ExchangesChangedEvent;
 
 @Service
+@Timed(value = "currency.service", histogram = true)
 public class CurrencyService {
 
     private final CurrencyRepository currencyRepository;
 
-    private final AwesomeClient awesomeClient;
+    private final RateMatrixHolder rateMatrixHolder;
+
+    private final QuoteService quoteService;
+
+    private final ExchangeRateRepository exchangeRateRepository;
+
+    private final RatesProperties ratesProperties;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final ListingProperties listingProperties;
+
+    private final QuoteHistory quoteHistory;
+
+    private final RateStream rateStream;
+
+    private final BatchProperties batchProperties;
 
     @Autowired
-    public CurrencyService(CurrencyRepository currencyRepository, AwesomeClient awesomeClient) {
+    public CurrencyService(CurrencyRepository currencyRepository, RateMatrixHolder rateMatrixHolder, QuoteService quoteService,
+                           ExchangeRateRepository exchangeRateRepository, RatesProperties ratesProperties,
+                           ApplicationEventPublisher publisher, ListingProperties listingProperties, QuoteHistory quoteHistory,
+                           RateStream rateStream, BatchProperties batchProperties) {
         this.currencyRepository = currencyRepository;
-        this.awesomeClient = awesomeClient;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.quoteService = quoteService;
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.ratesProperties = ratesProperties;
+        this.publisher = publisher;
+        this.listingProperties = listingProperties;
+        this.quoteHistory = quoteHistory;
+        this.rateStream = rateStream;
+        this.batchProperties = batchProperties;
     }
 
     public List<CurrencyResponse> get() {
         List<Currency> currencies = currencyRepository.findAll();
         List<CurrencyResponse> dtos = new ArrayList<>();
 
-        currencies.forEach((currency) -> dtos.add(CurrencyResponse.builder()
-                .label("%s - %s".formatted(currency.getId(), currency.getName()))
-                .build()));
+        currencies.forEach((currency) -> dtos.add(toResponse(currency.getId(), currency.getName())));
 
         return dtos;
     }
 
+    public CurrencyPageResponse getPage(Long after, Integer size) {
+        int limit = Objects.isNull(size) ? listingProperties.getPageSize() : size;
+        limit = Math.max(1, Math.min(limit, listingProperties.getMaxPageSize()));
+
+        // one extra row tells whether another page follows
+        List<CurrencyRepository.Label> rows = currencyRepository.findByIdGreaterThanOrderById(
+                Objects.isNull(after) ? Long.MIN_VALUE : after, Limit.of(limit + 1));
+        List<CurrencyRepository.Label> page = rows.subList(0, Math.min(limit, rows.size()));
+
+        return CurrencyPageResponse.builder()
+                .items(page.stream().map(row -> toResponse(row.getId(), row.getName())).toList())
+                .next(rows.size() > limit ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Hands every currency to the consumer in id order without holding the table in memory.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<CurrencyResponse> consumer) {
+        try (Stream<CurrencyRepository.Label> rows = currencyRepository.streamAllLabels()) {
+            rows.forEach(row -> consumer.accept(toResponse(row.getId(), row.getName())));
+        }
+    }
+
+    private CurrencyResponse toResponse(Long id, String name) {
+        return CurrencyResponse.builder()
+                .label("%s - %s".formatted(id, name))
+                .build();
+    }
+
+    @Transactional
     public Long create(CurrencyRequest request) throws CurrencyException {
         Currency currency = currencyRepository.findByName(request.getName());
 
@@ -50,14 +131,66 @@ public class CurrencyService {
                 .description(request.getDescription())
                 .exchanges(request.getExchanges())
                 .build());
+        if (Objects.nonNull(request.getExchanges())) {
+            exchangeRateRepository.saveAll(request.getExchanges().entrySet().stream()
+                    .map(exchange -> ExchangeRate.builder()
+                            .fromCode(request.getName())
+                            .toCode(exchange.getKey())
+                            .currencyId(saved.getId())
+                            .rate(exchange.getValue())
+                            .build())
+                    .toList());
+        }
         return saved.getId();
     }
 
+    @Transactional
     public void delete(Long id) {
+        exchangeRateRepository.deleteByCurrencyId(id);
         currencyRepository.deleteById(id);
     }
 
+    @Transactional
+    public void patchExchanges(Long id, PatchExchangesRequest request) throws CoinNotFoundException, CurrencyException {
+        Map<String, BigDecimal> upsert = Objects.isNull(request.getUpsert()) ? Map.of() : request.getUpsert();
+        Set<String> remove = Objects.isNull(request.getRemove()) ? Set.of() : request.getRemove();
+        upsert.forEach((code, rate) -> {
+            if (Objects.isNull(rate)) {
+                throw new CurrencyException(String.format("Rate of %s is required", code));
+            }
+            if (remove.contains(code)) {
+                throw new CurrencyException(String.format("Exchange %s cannot be updated and removed at once", code));
+            }
+        });
+
+        Currency currency = currencyRepository.findLockedById(id)
+                .orElseThrow(() -> new CoinNotFoundException(String.format("Coin not found: %s", id)));
+
+        upsert.forEach((code, rate) -> {
+            if (currencyRepository.updateExchange(id, code, rate) == 0) {
+                currencyRepository.insertExchange(id, code, rate);
+            }
+            if (exchangeRateRepository.updateRate(currency.getName(), code, rate) == 0) {
+                exchangeRateRepository.save(ExchangeRate.builder()
+                        .fromCode(currency.getName())
+                        .toCode(code)
+                        .currencyId(id)
+                        .rate(rate)
+                        .build());
+            }
+        });
+        if (!remove.isEmpty()) {
+            currencyRepository.deleteExchanges(id, remove);
+            exchangeRateRepository.deleteRates(currency.getName(), remove);
+        }
+
+        publisher.publishEvent(new ExchangesChangedEvent(id, new HashMap<>(upsert), new HashSet<>(remove)));
+    }
+
     public ConvertCurrencyResponse convert(ConvertCurrencyRequest request) throws CoinNotFoundException {
+        if (Objects.nonNull(request.getAt())) {
+            return convertAt(request);
+        }
         BigDecimal amount = getAmount(request);
         return ConvertCurrencyResponse.builder()
                 .amount(amount)
@@ -65,14 +198,76 @@ public class CurrencyService {
 
     }
 
+    /**
+     * Converts with the upstream quote of the pair that was current at the requested instant.
+     */
+    private ConvertCurrencyResponse convertAt(ConvertCurrencyRequest request) throws CoinNotFoundException {
+        String pair = pairOf(request);
+        BigDecimal rate = quoteHistory.rateAt(pair, request.getAt())
+                .orElseThrow(() -> new CoinNotFoundException(String.format("Quote not found: %s at %s", pair, request.getAt())));
+        return ConvertCurrencyResponse.builder()
+                .amount(request.getAmount().multiply(rate))
+                .build();
+    }
+
+    public List<BatchConvertCurrencyResponse> convertBatch(List<ConvertCurrencyRequest> requests) throws CurrencyException {
+        checkBatch(requests);
+        if (isDatabaseSource()) {
+            return requests.stream()
+                    .map(request -> toBatchResponse(request, () -> lookupAmount(request)))
+                    .toList();
+        }
+        RateMatrix rates = rateMatrixHolder.current();
+        return requests.stream()
+                .map(request -> toBatchResponse(request, () -> getAmount(rates, request)))
+                .toList();
+    }
+
+    // per-item errors are for pairs that cannot be converted, a batch that is too large or misses a code is rejected whole
+    private void checkBatch(List<ConvertCurrencyRequest> requests) throws CurrencyException {
+        if (requests.size() > batchProperties.getMaxSize()) {
+            throw new CurrencyException(String.format("Convert at most %d pairs per batch", batchProperties.getMaxSize()));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            ConvertCurrencyRequest request = requests.get(i);
+            if (Objects.isNull(request) || Objects.isNull(request.getFrom()) || Objects.isNull(request.getTo())) {
+                throw new CurrencyException(String.format("Coins to convert from and to are required, entry %d", i + 1));
+            }
+        }
+    }
+
     private BigDecimal getAmount(ConvertCurrencyRequest request) throws CoinNotFoundException {
-        Currency currency = currencyRepository.findByName(request.getFrom());
+        if (isDatabaseSource()) {
+            return lookupAmount(request);
+        }
+        return getAmount(rateMatrixHolder.current(), request);
+    }
+
+    private boolean isDatabaseSource() {
+        return ratesProperties.getSource() == RatesProperties.Source.DATABASE;
+    }
+
+    private BigDecimal lookupAmount(ConvertCurrencyRequest request) throws CoinNotFoundException {
+        ExchangeRateRepository.RateLookup lookup = exchangeRateRepository.findRate(request.getFrom(), request.getTo())
+                .orElseThrow(() -> new CoinNotFoundException(String.format("Coin not found: %s", request.getFrom())));
+
+        if (Objects.isNull(lookup.getRate())) {
+            throw new CoinNotFoundException(String.format("Exchange %s not found for %s", request.getTo(), request.getFrom()));
+        }
 
-        if (Objects.isNull(currency)) {
+        return request.getAmount().multiply(lookup.getRate());
+    }
+
+    private BigDecimal getAmount(RateMatrix rates, ConvertCurrencyRequest request) throws CoinNotFoundException {
+        if (!rates.contains(request.getFrom())) {
             throw new CoinNotFoundException(String.format("Coin not found: %s", request.getFrom()));
         }
 
-        BigDecimal exchange = currency.getExchanges().get(request.getTo());
+        BigDecimal exchange = rates.rate(request.getFrom(), request.getTo());
+
+        if (Objects.isNull(exchange)) {
+            exchange = rates.crossRate(request.getFrom(), request.getTo());
+        }
 
         if (Objects.isNull(exchange)) {
             throw new CoinNotFoundException(String.format("Exchange %s not found for %s", request.getTo(), request.getFrom()));
@@ -81,27 +276,102 @@ public class CurrencyService {
         return request.getAmount().multiply(exchange);
     }
 
-    public ConvertCurrencyResponse convertUsingExternalApi(ConvertCurrencyRequest request) throws CoinNotFoundException {
-        BigDecimal amount = getAmountUsingExternalApi(request);
-        return ConvertCurrencyResponse.builder()
-                .amount(amount)
-                .build();
+    public CompletableFuture<ConvertCurrencyResponse> convertUsingExternalApiAsync(ConvertCurrencyRequest request) {
+        return quoteService.getQuoteAsync(pairOf(request))
+                .thenApply(quote -> ConvertCurrencyResponse.builder()
+                        .amount(getAmount(request, quote))
+                        .stale(quote.stale())
+                        .build());
+    }
+
+    public CompletableFuture<List<BatchConvertCurrencyResponse>> convertBatchUsingExternalApiAsync(List<ConvertCurrencyRequest> requests)
+            throws CurrencyException {
+        checkBatch(requests);
+        Map<String, CompletableFuture<QuoteRate>> quotes = quoteService.getQuotesAsync(requests.stream()
+                .map(this::pairOf)
+                .toList());
+
+        // failed pairs become per-item errors, so wait for every quote whatever its outcome
+        return CompletableFuture.allOf(quotes.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> requests.stream()
+                        .map(request -> toBatchResponse(request, quotes.get(pairOf(request))))
+                        .toList());
+    }
+
+    /**
+     * Streams the rate changes of the pairs, each one starting with its current rate: the upstream quote,
+     * fetched unless it is cached, or the rate of the current snapshot.
+     */
+    public Flux<RateUpdate> subscribeRates(RateStream.Source source, List<String> pairs) throws CurrencyException {
+        return rateStream.subscribe(source, pairs, pair -> {
+            if (source == RateStream.Source.LOCAL) {
+                rateStream.publish(source, pair, RateStream.localRate(rateMatrixHolder.current(), pair), Instant.now().getEpochSecond());
+                return;
+            }
+            quoteService.getQuoteAsync(pair).thenAccept(quote -> {
+                if (!quote.stale()) {
+                    rateStream.onQuote(pair, quote);
+                }
+            });
+        });
+    }
+
+    /**
+     * How long a conversion may be cached by clients, the remaining ttl of the quote it used.
+     */
+    public Duration quoteFreshness(ConvertCurrencyRequest request, ConvertCurrencyResponse response) {
+        return response.isStale() ? Duration.ZERO : quoteService.freshness(pairOf(request));
+    }
 
+    /**
+     * The shortest freshness of the quotes a batch used, zero when an item failed or was served stale.
+     */
+    public Duration quoteFreshness(List<ConvertCurrencyRequest> requests, List<BatchConvertCurrencyResponse> responses) {
+        if (responses.stream().anyMatch(response -> Objects.nonNull(response.getError()) || Boolean.TRUE.equals(response.getStale()))) {
+            return Duration.ZERO;
+        }
+        return requests.stream()
+                .map(request -> quoteService.freshness(pairOf(request)))
+                .min(Duration::compareTo)
+                .orElse(Duration.ZERO);
     }
 
-    private BigDecimal getAmountUsingExternalApi(ConvertCurrencyRequest request) throws CoinNotFoundException {
-        String currencyToCurrency = String.format("%s-%s".toUpperCase(), request.getFrom(), request.getTo());
+    private BigDecimal getAmount(ConvertCurrencyRequest request, QuoteRate quote) {
+        return request.getAmount().multiply(quote.high());
+    }
 
-        var response = awesomeClient.get(currencyToCurrency);
+    private String pairOf(ConvertCurrencyRequest request) {
+        return String.format("%s-%s", request.getFrom(), request.getTo()).toUpperCase(Locale.ROOT);
+    }
 
-        BigDecimal high = new BigDecimal(response
-                .getBody()
-                .getQuotes()
-                .get(currencyToCurrency.replace("-", ""))
-                .getHigh());
+    private BatchConvertCurrencyResponse toBatchResponse(ConvertCurrencyRequest request, CompletableFuture<QuoteRate> quote) {
+        BatchConvertCurrencyResponse response = toBatchResponse(request, () -> getAmount(request, quote.join()));
+        if (Objects.isNull(response.getError())) {
+            response.setStale(quote.join().stale());
+        }
+        return response;
+    }
 
-        return request.getAmount().multiply(high);
+    private BatchConvertCurrencyResponse toBatchResponse(ConvertCurrencyRequest request, Supplier<BigDecimal> amount) {
+        BatchConvertCurrencyResponse response = BatchConvertCurrencyResponse.builder()
+                .from(request.getFrom())
+                .to(request.getTo())
+                .build();
+        try {
+            response.setAmount(amount.get());
+        } catch (CompletionException e) {
+            response.setError(errorMessage(e.getCause()));
+        } catch (RuntimeException e) {
+            response.setError(errorMessage(e));
+        }
+        return response;
+    }
 
+    private String errorMessage(Throwable error) {
+        if (error instanceof CoinNotFoundException || error instanceof CurrencyException) {
+            return error.getMessage();
+        }
+        return "Error while processing your request. Try again later.";
     }
 
 }
@@ -0,0 +1,426 @@
+package br.com.ada.currencyapi.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.config.HistoryProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only time series of the upstream quotes, one per pair.
+ * The newest ticks of a pair are kept in memory as primitive columns of timestamps and rates; once a chunk is
+ * full it is written to the pair's file as {@code count, timestamps[count], unscaled[count], scales[count]}
+ * and only its first timestamp and file offset stay on the heap. Ticks are appended by a single writer
+ * thread, so recording never blocks the quote path, and a tick whose timestamp is not newer than the
+ * pair's last one is ignored. At most {@code max-open-files} pair files are open at once; the least recently
+ * used one is closed when another is needed and reopened on its next read or seal.
+ */
+@Slf4j
+@Service
+public class QuoteHistory implements MeterBinder {
+
+    private static final Pattern PAIR = Pattern.compile("[A-Za-z0-9]{1,16}-[A-Za-z0-9]{1,16}");
+
+    private static final int HEADER = Integer.BYTES;
+
+    private static final int TICK = Long.BYTES + Long.BYTES + Byte.BYTES;
+
+    private final Path directory;
+
+    private final int chunkSize;
+
+    private final Executor writer;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    // series with an open file, in access order, guarded by itself
+    private final LinkedHashMap<Series, Boolean> openFiles;
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public QuoteHistory(HistoryProperties properties) {
+        this(properties, properties.isEnabled() ? newWriter(properties.getQueueCapacity()) : null);
+    }
+
+    QuoteHistory(HistoryProperties properties, Executor writer) {
+        this.directory = properties.getDirectory();
+        this.chunkSize = properties.getChunkSize();
+        this.writer = writer;
+        int maxOpenFiles = Math.max(1, properties.getMaxOpenFiles());
+        this.openFiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Series, Boolean> eldest) {
+                if (size() <= maxOpenFiles) {
+                    return false;
+                }
+                eldest.getKey().release();
+                return true;
+            }
+        };
+    }
+
+    private static ExecutorService newWriter(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "quote-history");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void record(String pair, QuoteRate quote) {
+        if (Objects.isNull(writer) || !PAIR.matcher(pair).matches() || Objects.isNull(quote.high())) {
+            return;
+        }
+        try {
+            writer.execute(() -> append(pair, quote.timestamp(), quote.high()));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    private void append(String pair, long timestamp, BigDecimal rate) {
+        BigDecimal value = rate.unscaledValue().bitLength() < Long.SIZE ? rate : rate.round(MathContext.DECIMAL64);
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            dropped.increment();
+            return;
+        }
+        try {
+            Series target = series.computeIfAbsent(pair, key -> open(key, true));
+            if (target.append(timestamp, value.unscaledValue().longValueExact(), (byte) value.scale())) {
+                recorded.increment();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            dropped.increment();
+            log.warn("Could not record quote of {}", pair, e);
+        }
+    }
+
+    /**
+     * The rate of the last tick of the pair at or before the instant.
+     */
+    public Optional<BigDecimal> rateAt(String pair, Instant at) {
+        if (!PAIR.matcher(pair).matches()) {
+            return Optional.empty();
+        }
+        Series target = series.get(pair);
+        if (Objects.isNull(target)) {
+            if (!Files.exists(file(pair))) {
+                return Optional.empty();
+            }
+            target = series.computeIfAbsent(pair, key -> open(key, false));
+        }
+        try {
+            return Optional.ofNullable(target.rateAt(at.getEpochSecond()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Series open(String pair, boolean create) {
+        try {
+            if (create) {
+                Files.createDirectories(directory);
+            }
+            return new Series(file(pair));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String pair) {
+        return directory.resolve(pair + ".ticks");
+    }
+
+    /**
+     * Stops the writer and seals every partial chunk, so the ticks still in memory survive a restart.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer instanceof ExecutorService executor) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (Series each : series.values()) {
+            try {
+                each.close();
+            } catch (IOException e) {
+                log.warn("Could not close quote history", e);
+            }
+        }
+        series.clear();
+    }
+
+    public long recordedCount() {
+        return recorded.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    int openFileCount() {
+        synchronized (openFiles) {
+            return openFiles.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("quotes.history.recorded", recorded, LongAdder::sum)
+                .description("Quote ticks appended to the history")
+                .register(registry);
+        FunctionCounter.builder("quotes.history.dropped", dropped, LongAdder::sum)
+                .description("Quote ticks that could not be appended to the history")
+                .register(registry);
+        Gauge.builder("quotes.history.pairs", series, Map::size)
+                .description("Pairs with an open history")
+                .register(registry);
+        Gauge.builder("quotes.history.open-files", this, QuoteHistory::openFileCount)
+                .description("Pair files currently open")
+                .register(registry);
+    }
+
+    // index of the last of the first n times at or before the timestamp, -1 when all are after it
+    static int floor(long[] times, int n, long timestamp) {
+        int low = 0;
+        int high = n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private final class Series {
+
+        private final Path file;
+
+        // null while closed to make room for other pairs, guarded by openFiles
+        private FileChannel channel;
+
+        private long end;
+
+        // sealed chunks on disk
+        private long[] firstTimes = new long[8];
+        private long[] offsets = new long[8];
+        private int[] counts = new int[8];
+        private int chunks;
+
+        // the chunk being filled
+        private long[] times = new long[16];
+        private long[] unscaled = new long[16];
+        private byte[] scales = new byte[16];
+        private int size;
+
+        private long last = Long.MIN_VALUE;
+
+        private Series(Path file) throws IOException {
+            this.file = file;
+            load();
+        }
+
+        private FileChannel channel() throws IOException {
+            synchronized (openFiles) {
+                if (Objects.isNull(channel) || !channel.isOpen()) {
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                openFiles.put(this, Boolean.TRUE);
+                return channel;
+            }
+        }
+
+        // called with openFiles held
+        private void release() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close quote history of {}", file, e);
+            }
+            channel = null;
+        }
+
+        private void load() throws IOException {
+            long length = channel().size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER + Long.BYTES);
+            while (end + header.capacity() <= length) {
+                readFully(header.clear(), end);
+                int count = header.getInt(0);
+                if (count <= 0 || end + HEADER + (long) TICK * count > length) {
+                    break;
+                }
+                index(header.getLong(HEADER), end, count);
+                last = readLong(end + HEADER + (long) Long.BYTES * (count - 1));
+                end += HEADER + (long) TICK * count;
+            }
+            if (end < length) {
+                // a chunk torn by a crash, drop it so the next one is appended where it started
+                channel().truncate(end);
+            }
+        }
+
+        private synchronized boolean append(long timestamp, long value, byte scale) throws IOException {
+            if (timestamp <= last) {
+                return false;
+            }
+            if (size == times.length) {
+                int capacity = Math.min(times.length * 2, chunkSize);
+                times = Arrays.copyOf(times, capacity);
+                unscaled = Arrays.copyOf(unscaled, capacity);
+                scales = Arrays.copyOf(scales, capacity);
+            }
+            times[size] = timestamp;
+            unscaled[size] = value;
+            scales[size] = scale;
+            size++;
+            last = timestamp;
+            if (size >= chunkSize) {
+                seal();
+            }
+            return true;
+        }
+
+        private void seal() throws IOException {
+            ByteBuffer chunk = ByteBuffer.allocate(HEADER + TICK * size);
+            chunk.putInt(size);
+            for (int i = 0; i < size; i++) {
+                chunk.putLong(times[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                chunk.putLong(unscaled[i]);
+            }
+            chunk.put(scales, 0, size);
+            chunk.flip();
+            try {
+                write(channel(), chunk);
+            } catch (ClosedByInterruptException e) {
+                throw e;
+            } catch (ClosedChannelException e) {
+                // closed meanwhile to make room for another pair, the rest is written to a fresh channel
+                write(channel(), chunk);
+            }
+            index(times[0], end, size);
+            end += chunk.limit();
+            size = 0;
+        }
+
+        private void index(long firstTime, long offset, int count) {
+            if (chunks == firstTimes.length) {
+                firstTimes = Arrays.copyOf(firstTimes, chunks * 2);
+                offsets = Arrays.copyOf(offsets, chunks * 2);
+                counts = Arrays.copyOf(counts, chunks * 2);
+            }
+            firstTimes[chunks] = firstTime;
+            offsets[chunks] = offset;
+            counts[chunks] = count;
+            chunks++;
+        }
+
+        private BigDecimal rateAt(long timestamp) throws IOException {
+            long offset;
+            int count;
+            synchronized (this) {
+                if (size > 0 && times[0] <= timestamp) {
+                    int i = floor(times, size, timestamp);
+                    return BigDecimal.valueOf(unscaled[i], scales[i]);
+                }
+                int chunk = floor(firstTimes, chunks, timestamp);
+                if (chunk < 0) {
+                    return null;
+                }
+                offset = offsets[chunk];
+                count = counts[chunk];
+            }
+            // sealed chunks never change, so they are searched without holding the lock
+            ByteBuffer column = ByteBuffer.allocate(Long.BYTES * count);
+            readFully(column, offset + HEADER);
+            long[] chunkTimes = new long[count];
+            column.flip().asLongBuffer().get(chunkTimes);
+            int i = floor(chunkTimes, count, timestamp);
+            long value = readLong(offset + HEADER + (long) Long.BYTES * (count + i));
+            ByteBuffer scale = ByteBuffer.allocate(Byte.BYTES);
+            readFully(scale, offset + HEADER + 2L * Long.BYTES * count + i);
+            return BigDecimal.valueOf(value, scale.get(0));
+        }
+
+        private long readLong(long position) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            readFully(buffer, position);
+            return buffer.getLong(0);
+        }
+
+        private void write(FileChannel channel, ByteBuffer chunk) throws IOException {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk, end + chunk.position());
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            try {
+                read(channel(), buffer, position);
+            } catch (ClosedByInterruptException e) {
+                throw e;
+            } catch (ClosedChannelException e) {
+                read(channel(), buffer, position);
+            }
+        }
+
+        private void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of quote history");
+                }
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            if (size > 0) {
+                seal();
+            }
+            synchronized (openFiles) {
+                if (Objects.nonNull(openFiles.remove(this))) {
+                    release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.ada.currencyapi.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import br.com.ada.currencyapi.config.PrefetchProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the most requested pairs refreshed ahead of expiry so external conversions are served from memory.
+ * Demand is scored with exponential decay: each tick halves every score and adds the requests seen since the
+ * previous tick, pairs whose score falls below one are forgotten.
+ * Runs as an application runner, so the warm-up finishes before the readiness state turns to accepting traffic.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "currency.prefetch.enabled", havingValue = "true", matchIfMissing = true)
+public class QuotePrefetcher implements ApplicationRunner {
+
+    private static final double COLD_SCORE = 1.0;
+
+    private final QuoteService quoteService;
+
+    private final PrefetchProperties properties;
+
+    private final ThreadPoolTaskScheduler quoteScheduler;
+
+    private final RateStream rateStream;
+
+    private final Map<String, Double> scores = new HashMap<>();
+
+    public QuotePrefetcher(QuoteService quoteService, PrefetchProperties properties,
+                           @Qualifier("quoteScheduler") ThreadPoolTaskScheduler quoteScheduler, RateStream rateStream) {
+        this.quoteService = quoteService;
+        this.properties = properties;
+        this.quoteScheduler = quoteScheduler;
+        this.rateStream = rateStream;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+        quoteScheduler.scheduleAtFixedRate(this::prefetch, Instant.now().plus(properties.getInterval()), properties.getInterval());
+    }
+
+    void warmUp() {
+        List<String> pairs = properties.getWarmUpPairs();
+        if (pairs.isEmpty()) {
+            return;
+        }
+        try {
+            quoteService.prefetch(pairs, horizon()).get(properties.getWarmUpTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Warmed up quotes for {}", pairs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Quote warm-up for {} did not complete, starting without it", pairs, e);
+        }
+    }
+
+    synchronized void prefetch() {
+        try {
+            // streamed pairs are refreshed whatever their demand, their subscribers no longer poll
+            Set<String> hot = new LinkedHashSet<>(hotPairs());
+            hot.addAll(rateStream.pairs(RateStream.Source.QUOTE));
+            if (!hot.isEmpty()) {
+                quoteService.prefetch(hot, horizon()).exceptionally(error -> {
+                    log.debug("Prefetching {} quotes failed", hot.size(), error);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Quote prefetch failed", e);
+        }
+    }
+
+    synchronized List<String> hotPairs() {
+        scores.replaceAll((pair, score) -> score / 2);
+        quoteService.drainDemand().forEach((pair, requests) -> scores.merge(pair, requests.doubleValue(), Double::sum));
+        scores.values().removeIf(score -> score < COLD_SCORE);
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(properties.getHotPairs())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // refresh whatever would go stale before the tick after next, one spare tick absorbs scheduling jitter
+    private Duration horizon() {
+        return properties.getInterval().multipliedBy(2);
+    }
+}
@@ -0,0 +1,224 @@
+package br.com.ada.currencyapi.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.client.SingleFlightQuoteClient;
+import br.com.ada.currencyapi.config.QuoteCacheProperties;
+import br.com.ada.currencyapi.exception.CoinNotFoundException;
+import br.com.ada.currencyapi.exception.QuoteProviderUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches upstream quotes per pair. A quote older than the ttl is still served while a single
+ * background refresh replaces it; past ttl + max-stale the caller waits for a fresh quote.
+ * While the provider's circuit is open the last quote ever fetched for the pair is served, flagged as stale.
+ * Every fetched quote is also appended to the {@link QuoteHistory} and published to the {@link RateStream}.
+ */
+@Service
+public class QuoteService implements MeterBinder {
+
+    private final SingleFlightQuoteClient quoteClient;
+
+    private final AsyncLoadingCache<String, QuoteRate> quotes;
+
+    private final Duration ttl;
+
+    private final long maxTrackedPairs;
+
+    // requests per pair since the prefetcher last drained them
+    private final Map<String, LongAdder> demand = new ConcurrentHashMap<>();
+
+    private final Cache<String, QuoteRate> lastKnown;
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder staleServed = new LongAdder();
+
+    private final QuoteHistory history;
+
+    private final RateStream rateStream;
+
+    @Autowired
+    public QuoteService(SingleFlightQuoteClient quoteClient, QuoteCacheProperties properties,
+                        @Qualifier("quoteExecutor") Executor quoteExecutor, QuoteHistory history, RateStream rateStream) {
+        this(quoteClient, properties, quoteExecutor, Ticker.systemTicker(), history, rateStream);
+    }
+
+    QuoteService(SingleFlightQuoteClient quoteClient, QuoteCacheProperties properties, Executor quoteExecutor, Ticker ticker,
+                 QuoteHistory history, RateStream rateStream) {
+        this.quoteClient = quoteClient;
+        this.history = history;
+        this.rateStream = rateStream;
+        this.ttl = properties.getTtl();
+        this.maxTrackedPairs = properties.getMaximumSize();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .build();
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getTtl())
+                .expireAfterWrite(properties.getTtl().plus(properties.getMaxStale()))
+                .executor(quoteExecutor)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<QuoteRate> asyncLoad(String pair, Executor executor) {
+                        return fetch(pair);
+                    }
+
+                    @Override
+                    public CompletableFuture<QuoteRate> asyncReload(String pair, QuoteRate oldValue, Executor executor) {
+                        refreshes.increment();
+                        return fetch(pair);
+                    }
+                });
+    }
+
+    private CompletableFuture<QuoteRate> fetch(String pair) {
+        return quoteClient.getAsync(pair).thenApply(quote -> {
+            if (Objects.nonNull(quote)) {
+                lastKnown.put(pair, quote);
+                history.record(pair, quote);
+                rateStream.onQuote(pair, quote);
+            }
+            return quote;
+        });
+    }
+
+    public CompletableFuture<QuoteRate> getQuoteAsync(String pair) {
+        recordDemand(pair);
+        return quotes.get(pair).exceptionally(error -> lastKnownOrRethrow(pair, error)).thenApply(quote -> {
+            if (Objects.isNull(quote)) {
+                throw new CoinNotFoundException(String.format("Quote not found: %s", pair));
+            }
+            return quote;
+        });
+    }
+
+    private QuoteRate lastKnownOrRethrow(String pair, Throwable error) {
+        Throwable cause = error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+        QuoteRate quote = cause instanceof QuoteProviderUnavailableException ? lastKnown.getIfPresent(pair) : null;
+        if (Objects.isNull(quote)) {
+            throw error instanceof CompletionException completionException ? completionException : new CompletionException(error);
+        }
+        staleServed.increment();
+        return quote.asStale();
+    }
+
+    private void recordDemand(String pair) {
+        LongAdder count = demand.get(pair);
+        if (Objects.isNull(count)) {
+            if (demand.size() >= maxTrackedPairs) {
+                return;
+            }
+            count = demand.computeIfAbsent(pair, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Returns the requests per pair since the previous call and forgets pairs nobody asked for since.
+     */
+    public Map<String, Long> drainDemand() {
+        Map<String, Long> counts = new HashMap<>();
+        demand.forEach((pair, count) -> {
+            long requests = count.sumThenReset();
+            if (requests > 0) {
+                counts.put(pair, requests);
+            } else {
+                demand.remove(pair, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Loads the pairs that are missing or would reach the ttl within the horizon, in one burst so the
+     * batcher can group them into multi-pair upstream calls.
+     */
+    public CompletableFuture<Void> prefetch(Collection<String> pairs, Duration horizon) {
+        LoadingCache<String, QuoteRate> cache = quotes.synchronous();
+        Optional<Policy.FixedRefresh<String, QuoteRate>> refresh = cache.policy().refreshAfterWrite();
+        List<String> due = pairs.stream()
+                .distinct()
+                .filter(pair -> refresh.flatMap(policy -> policy.ageOf(pair))
+                        .map(age -> age.plus(horizon).compareTo(ttl) >= 0)
+                        .orElse(true))
+                .toList();
+        if (due.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return cache.refreshAll(due).thenAccept(refreshed -> { });
+    }
+
+    /**
+     * How much longer the cached quote of the pair stays within the ttl, zero when it is missing or older.
+     */
+    public Duration freshness(String pair) {
+        return quotes.synchronous().policy().refreshAfterWrite()
+                .flatMap(policy -> policy.ageOf(pair))
+                .map(ttl::minus)
+                .filter(remaining -> !remaining.isNegative())
+                .orElse(Duration.ZERO);
+    }
+
+    public Map<String, CompletableFuture<QuoteRate>> getQuotesAsync(Collection<String> pairs) {
+        return pairs.stream()
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), this::getQuoteAsync));
+    }
+
+    public long hitCount() {
+        return quotes.synchronous().stats().hitCount();
+    }
+
+    public long missCount() {
+        return quotes.synchronous().stats().missCount();
+    }
+
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, quotes.synchronous(), "quotes");
+        FunctionCounter.builder("cache.refreshes", refreshes, LongAdder::sum)
+                .tag("cache", "quotes")
+                .description("Background refreshes of stale quotes")
+                .register(registry);
+        FunctionCounter.builder("quotes.stale.served", staleServed, LongAdder::sum)
+                .description("Last known quotes served while the quote provider was unavailable")
+                .register(registry);
+    }
+}
@@ -0,0 +1,278 @@
+package br.com.ada.currencyapi.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import br.com.ada.currencyapi.domain.Currency;
+
+/**
+ * Immutable snapshot of every registered exchange rate.
+ * Currency codes are mapped to dense int ids and each currency's rates are stored as a
+ * sorted row of target ids with the rate's unscaled value and scale in primitive arrays.
+ */
+public final class RateMatrix {
+
+    private static final int WIDE = Integer.MIN_VALUE;
+
+    private static final RateMatrix EMPTY = of(0L, List.of());
+
+    private final long version;
+    private final Map<String, Integer> ids;
+    private final String[] codes;
+    private final boolean[] registered;
+    private final Long[] currencyIds;
+    private final String[] descriptions;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] unscaled;
+    private final int[] scales;
+    private final Map<Integer, BigDecimal> wide;
+    private final ConversionGraph paths;
+
+    private RateMatrix(long version, Map<String, Integer> ids, String[] codes, boolean[] registered,
+                       Long[] currencyIds, String[] descriptions, int[] offsets, int[] targets, long[] unscaled, int[] scales,
+                       Map<Integer, BigDecimal> wide, ConversionGraph paths) {
+        this.version = version;
+        this.ids = ids;
+        this.codes = codes;
+        this.registered = registered;
+        this.currencyIds = currencyIds;
+        this.descriptions = descriptions;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.unscaled = unscaled;
+        this.scales = scales;
+        this.wide = wide;
+        this.paths = paths;
+    }
+
+    public static RateMatrix empty() {
+        return EMPTY;
+    }
+
+    public static RateMatrix of(long version, Collection<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(Row::id, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<String, Row> byName = new LinkedHashMap<>();
+        sorted.forEach(row -> byName.put(row.name(), row));
+
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        byName.keySet().forEach(name -> assign(ids, codes, name));
+        byName.values().forEach(row -> row.exchanges().keySet().forEach(code -> assign(ids, codes, code)));
+
+        int size = codes.size();
+        int rateCount = byName.values().stream().mapToInt(row -> row.exchanges().size()).sum();
+
+        boolean[] registered = new boolean[size];
+        Long[] currencyIds = new Long[size];
+        String[] descriptions = new String[size];
+        int[] offsets = new int[size + 1];
+        int[] targets = new int[rateCount];
+        long[] unscaled = new long[rateCount];
+        int[] scales = new int[rateCount];
+        Map<Integer, BigDecimal> wide = new HashMap<>();
+
+        int slot = 0;
+        for (int id = 0; id < size; id++) {
+            offsets[id] = slot;
+            Row row = byName.get(codes.get(id));
+            if (Objects.isNull(row)) {
+                continue;
+            }
+            registered[id] = true;
+            currencyIds[id] = row.id();
+            descriptions[id] = row.description();
+
+            int[] rowTargets = row.exchanges().keySet().stream().filter(Objects::nonNull).mapToInt(ids::get).sorted().toArray();
+            for (int target : rowTargets) {
+                targets[slot] = target;
+                encode(row.exchanges().get(codes.get(target)), slot, unscaled, scales, wide);
+                slot++;
+            }
+        }
+        offsets[size] = slot;
+
+        return new RateMatrix(version, Map.copyOf(ids), codes.toArray(String[]::new), registered, currencyIds,
+                descriptions, offsets, targets, unscaled, scales, Map.copyOf(wide), null);
+    }
+
+    private static void encode(BigDecimal rate, int slot, long[] unscaled, int[] scales, Map<Integer, BigDecimal> wide) {
+        if (Objects.isNull(rate) || rate.unscaledValue().bitLength() > 63) {
+            scales[slot] = WIDE;
+            if (Objects.nonNull(rate)) {
+                wide.put(slot, rate);
+            }
+        } else {
+            unscaled[slot] = rate.unscaledValue().longValue();
+            scales[slot] = rate.scale();
+        }
+    }
+
+    private static void assign(Map<String, Integer> ids, List<String> codes, String code) {
+        if (Objects.nonNull(code) && !ids.containsKey(code)) {
+            ids.put(code, codes.size());
+            codes.add(code);
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        int size = 0;
+        for (boolean isRegistered : registered) {
+            size += isRegistered ? 1 : 0;
+        }
+        return size;
+    }
+
+    public boolean contains(String code) {
+        Integer id = Objects.isNull(code) ? null : ids.get(code);
+        return Objects.nonNull(id) && registered[id];
+    }
+
+    public BigDecimal rate(String from, String to) {
+        if (Objects.isNull(from) || Objects.isNull(to)) {
+            return null;
+        }
+        Integer fromId = ids.get(from);
+        Integer toId = ids.get(to);
+        if (Objects.isNull(fromId) || Objects.isNull(toId)) {
+            return null;
+        }
+        int slot = Arrays.binarySearch(targets, offsets[fromId], offsets[fromId + 1], toId);
+        return slot < 0 ? null : decode(slot);
+    }
+
+    public BigDecimal crossRate(String from, String to) {
+        return Objects.isNull(paths) ? null : paths.rate(from, to);
+    }
+
+    public ConversionGraph paths() {
+        return paths;
+    }
+
+    public RateMatrix withPaths(ConversionGraph paths) {
+        return new RateMatrix(version, ids, codes, registered, currencyIds, descriptions, offsets, targets, unscaled,
+                scales, wide, paths);
+    }
+
+    private BigDecimal decode(int slot) {
+        return scales[slot] == WIDE ? wide.get(slot) : BigDecimal.valueOf(unscaled[slot], scales[slot]);
+    }
+
+    public List<Row> rows() {
+        List<Row> rows = new ArrayList<>();
+        for (int id = 0; id < codes.length; id++) {
+            if (!registered[id]) {
+                continue;
+            }
+            Map<String, BigDecimal> exchanges = new HashMap<>();
+            for (int slot = offsets[id]; slot < offsets[id + 1]; slot++) {
+                exchanges.put(codes[targets[slot]], decode(slot));
+            }
+            rows.add(new Row(currencyIds[id], codes[id], descriptions[id], exchanges));
+        }
+        return rows;
+    }
+
+    public Row row(Long currencyId) {
+        for (int id = 0; id < codes.length; id++) {
+            if (registered[id] && Objects.equals(currencyIds[id], currencyId)) {
+                Map<String, BigDecimal> exchanges = new HashMap<>();
+                for (int slot = offsets[id]; slot < offsets[id + 1]; slot++) {
+                    exchanges.put(codes[targets[slot]], decode(slot));
+                }
+                return new Row(currencyIds[id], codes[id], descriptions[id], exchanges);
+            }
+        }
+        return null;
+    }
+
+    // copies every row into a new snapshot, O(rows + exchanges) per change
+    public RateMatrix with(Row row) {
+        List<Row> rows = rows();
+        rows.removeIf(existing -> Objects.equals(existing.id(), row.id()) || Objects.equals(existing.name(), row.name()));
+        rows.add(row);
+        return of(version + 1, rows);
+    }
+
+    /**
+     * Swaps the rates of a registered currency, keeping the code ids and every other row: the rate arrays are
+     * copied around the row instead of rebuilt from rows. A row that renames the currency or points at a code the
+     * snapshot does not know yet goes through {@link #with(Row)}. Cross rates are dropped, the caller updates them.
+     */
+    public RateMatrix replace(Row row) {
+        Integer id = ids.get(row.name());
+        boolean knownCodes = row.exchanges().keySet().stream().allMatch(code -> Objects.nonNull(code) && ids.containsKey(code));
+        if (Objects.isNull(id) || !registered[id] || !Objects.equals(currencyIds[id], row.id()) || !knownCodes) {
+            return with(row);
+        }
+        int[] rowTargets = row.exchanges().keySet().stream().mapToInt(ids::get).sorted().toArray();
+        int start = offsets[id];
+        int end = offsets[id + 1];
+        int delta = rowTargets.length - (end - start);
+
+        int length = targets.length + delta;
+        int[] nextTargets = new int[length];
+        long[] nextUnscaled = new long[length];
+        int[] nextScales = new int[length];
+        System.arraycopy(targets, 0, nextTargets, 0, start);
+        System.arraycopy(unscaled, 0, nextUnscaled, 0, start);
+        System.arraycopy(scales, 0, nextScales, 0, start);
+        System.arraycopy(targets, end, nextTargets, end + delta, targets.length - end);
+        System.arraycopy(unscaled, end, nextUnscaled, end + delta, targets.length - end);
+        System.arraycopy(scales, end, nextScales, end + delta, targets.length - end);
+
+        Map<Integer, BigDecimal> nextWide = new HashMap<>();
+        wide.forEach((slot, rate) -> {
+            if (slot < start) {
+                nextWide.put(slot, rate);
+            } else if (slot >= end) {
+                nextWide.put(slot + delta, rate);
+            }
+        });
+        for (int i = 0; i < rowTargets.length; i++) {
+            nextTargets[start + i] = rowTargets[i];
+            encode(row.exchanges().get(codes[rowTargets[i]]), start + i, nextUnscaled, nextScales, nextWide);
+        }
+
+        int[] nextOffsets = offsets.clone();
+        for (int next = id + 1; next < nextOffsets.length; next++) {
+            nextOffsets[next] += delta;
+        }
+        String[] nextDescriptions = descriptions.clone();
+        nextDescriptions[id] = row.description();
+        return new RateMatrix(version + 1, ids, codes, registered, currencyIds, nextDescriptions, nextOffsets,
+                nextTargets, nextUnscaled, nextScales, Map.copyOf(nextWide), null);
+    }
+
+    public RateMatrix without(Long currencyId) {
+        List<Row> rows = rows();
+        rows.removeIf(existing -> Objects.equals(existing.id(), currencyId));
+        return of(version + 1, rows);
+    }
+
+    public record Row(Long id, String name, String description, Map<String, BigDecimal> exchanges) {
+
+        public Row {
+            exchanges = Objects.isNull(exchanges) ? Map.of() : exchanges;
+        }
+
+        public static Row from(Currency currency) {
+            return new Row(currency.getId(), currency.getName(), currency.getDescription(),
+                    Objects.isNull(currency.getExchanges()) ? Map.of() : new HashMap<>(currency.getExchanges()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.ada.currencyapi.service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.ada.currencyapi.config.TriangulationProperties;
+import br.com.ada.currencyapi.repository.CurrenciesImportedEvent;
+import br.com.ada.currencyapi.repository.CurrencyChangedEvent;
+import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.repository.ExchangesChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the current {@link RateMatrix}. Readers get the snapshot with a single volatile read;
+ * writers rebuild a new snapshot after each committed change and swap it in.
+ */
+@Slf4j
+@Component
+public class RateMatrixHolder {
+
+    private final CurrencyRepository currencyRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TriangulationProperties triangulation;
+
+    private final RateStream rateStream;
+
+    private volatile RateMatrix current;
+
+    public RateMatrixHolder(CurrencyRepository currencyRepository, PlatformTransactionManager transactionManager,
+                            TriangulationProperties triangulation, RateStream rateStream) {
+        this.currencyRepository = currencyRepository;
+        this.triangulation = triangulation;
+        this.rateStream = rateStream;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public RateMatrix current() {
+        RateMatrix matrix = current;
+        if (Objects.isNull(matrix)) {
+            synchronized (this) {
+                matrix = current;
+                if (Objects.isNull(matrix)) {
+                    matrix = load(1L);
+                    current = matrix;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCurrencyChanged(CurrencyChangedEvent event) {
+        RateMatrix matrix = current;
+        if (Objects.isNull(matrix)) {
+            return;
+        }
+        if (event.removed()) {
+            swap(withPaths(matrix.without(event.id())));
+            return;
+        }
+        RateMatrix.Row row = transactionTemplate.execute(status -> currencyRepository.findWithExchangesById(event.id())
+                .map(RateMatrix.Row::from)
+                .orElse(null));
+        if (Objects.isNull(row)) {
+            swap(withPaths(matrix.without(event.id())));
+            return;
+        }
+        swap(with(matrix, row));
+    }
+
+    /**
+     * Applies an exchange delta to the snapshot without reading the currency back from the database. Only the
+     * currency's row is replaced, and only the cross rates of sources that can reach a changed rate are recomputed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onExchangesChanged(ExchangesChangedEvent event) {
+        RateMatrix matrix = current;
+        if (Objects.isNull(matrix)) {
+            return;
+        }
+        RateMatrix.Row row = matrix.row(event.id());
+        if (Objects.isNull(row)) {
+            return;
+        }
+        Map<String, BigDecimal> exchanges = new HashMap<>(row.exchanges());
+        exchanges.putAll(event.upserted());
+        exchanges.keySet().removeAll(event.removed());
+        swap(with(matrix, new RateMatrix.Row(row.id(), row.name(), row.description(), exchanges)));
+    }
+
+    // later snapshots are published to the subscribers of local rates
+    private void swap(RateMatrix next) {
+        current = next;
+        rateStream.onRatesChanged(next);
+    }
+
+    // a registered currency keeps its place in the snapshot, a new one is pivoted into the paths
+    private RateMatrix with(RateMatrix matrix, RateMatrix.Row row) {
+        RateMatrix.Row previous = matrix.row(row.id());
+        if (Objects.nonNull(previous) && Objects.equals(previous.name(), row.name())) {
+            RateMatrix next = matrix.replace(row);
+            if (Objects.nonNull(matrix.paths())) {
+                return next.withPaths(matrix.paths().withChangedRates(next, previous, row));
+            }
+            return withPaths(next);
+        }
+        RateMatrix next = matrix.with(row);
+        if (Objects.nonNull(matrix.paths()) && next.size() <= triangulation.getMaxCurrencies()) {
+            return next.withPaths(matrix.paths().withCurrency(matrix, next, row));
+        }
+        return withPaths(next);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCurrenciesImported(CurrenciesImportedEvent event) {
+        RateMatrix matrix = current;
+        if (Objects.isNull(matrix)) {
+            return;
+        }
+        swap(load(matrix.version() + 1));
+    }
+
+    private RateMatrix load(long version) {
+        RateMatrix matrix = transactionTemplate.execute(status -> RateMatrix.of(version,
+                currencyRepository.findAllWithExchanges().stream().map(RateMatrix.Row::from).toList()));
+        log.info("Loaded rate matrix with {} currencies", matrix.size());
+        return withPaths(matrix);
+    }
+
+    private RateMatrix withPaths(RateMatrix matrix) {
+        if (!triangulation.isEnabled()) {
+            return matrix;
+        }
+        if (matrix.size() > triangulation.getMaxCurrencies()) {
+            log.warn("Cross rates disabled: {} currencies exceed currency.triangulation.max-currencies={}",
+                    matrix.size(), triangulation.getMaxCurrencies());
+            return matrix;
+        }
+        int maxHops = Math.min(triangulation.getMaxHops(), Byte.MAX_VALUE);
+        return matrix.withPaths(ConversionGraph.build(matrix, triangulation.getMode(), maxHops));
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.ada.currencyapi.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.config.StreamProperties;
+import br.com.ada.currencyapi.domain.RateUpdate;
+import br.com.ada.currencyapi.exception.CurrencyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Pushes rate changes to subscribers of a pair. Each subscribed pair has one topic holding only its latest update:
+ * an update is published only when the rate moved. Every subscriber conflates per pair, so one that falls behind
+ * keeps at most the update already handed to it and the latest one, not everything published meanwhile.
+ * Publishing hands the update to every subscriber on the publishing thread, the web layer writes it out on its
+ * shared async executor, the bounded {@code applicationTaskExecutor}.
+ */
+@Service
+public class RateStream implements MeterBinder {
+
+    public enum Source {
+        // the upstream quote of the pair, as served by /currency/api-convert
+        QUOTE,
+        // the registered exchanges of the currencies, as served by /currency/convert
+        LOCAL
+    }
+
+    private record Key(Source source, String pair) {
+    }
+
+    private static final Pattern PAIR = Pattern.compile("[A-Z0-9]+-[A-Z0-9]+");
+
+    private final Map<Key, Topic> topics = new ConcurrentHashMap<>();
+
+    private final int maxPairs;
+
+    public RateStream(StreamProperties properties) {
+        this.maxPairs = properties.getMaxPairs();
+    }
+
+    /**
+     * Updates of the pairs, starting with the latest known one of each. The callback runs once a pair's topic
+     * exists, so whatever the caller publishes from it reaches this subscriber.
+     */
+    public Flux<RateUpdate> subscribe(Source source, Collection<String> pairs, Consumer<String> onSubscribed)
+            throws CurrencyException {
+        // topics are keyed by the upper-case pair that the quotes and local rates are published under
+        Set<String> distinct = pairs.stream().map(pair -> pair.toUpperCase(Locale.ROOT)).collect(Collectors.toSet());
+        if (distinct.isEmpty() || distinct.size() > maxPairs) {
+            throw new CurrencyException(String.format("Subscribe to between 1 and %d pairs", maxPairs));
+        }
+        distinct.stream()
+                .filter(pair -> !PAIR.matcher(pair).matches())
+                .findFirst()
+                .ifPresent(pair -> {
+                    throw new CurrencyException(String.format("Invalid pair: %s", pair));
+                });
+        return Flux.fromIterable(distinct)
+                .flatMap(pair -> updates(new Key(source, pair), onSubscribed), distinct.size(), 1);
+    }
+
+    private Flux<RateUpdate> updates(Key key, Consumer<String> onSubscribed) {
+        return Flux.defer(() -> {
+            Topic topic = topics.compute(key, (ignored, existing) -> {
+                Topic acquired = Objects.isNull(existing) ? new Topic() : existing;
+                acquired.subscribers++;
+                return acquired;
+            });
+            onSubscribed.accept(key.pair());
+            // drains the replay cursor right away and keeps only the newest update the subscriber has not asked for yet
+            return topic.sink.asFlux().onBackpressureLatest();
+        }).doFinally(signal -> topics.computeIfPresent(key, (ignored, topic) -> --topic.subscribers == 0 ? null : topic));
+    }
+
+    public void publish(Source source, String pair, BigDecimal rate, long timestamp) {
+        Topic topic = topics.get(new Key(source, pair));
+        if (Objects.nonNull(topic) && Objects.nonNull(rate)) {
+            topic.publish(RateUpdate.builder().pair(pair).rate(rate).timestamp(timestamp).build());
+        }
+    }
+
+    public void onQuote(String pair, QuoteRate quote) {
+        publish(Source.QUOTE, pair, quote.high(), quote.timestamp());
+    }
+
+    /**
+     * Publishes the rates of the subscribed local pairs from a new snapshot, only the moved ones reach subscribers.
+     */
+    public void onRatesChanged(RateMatrix rates) {
+        long now = Instant.now().getEpochSecond();
+        for (String pair : pairs(Source.LOCAL)) {
+            publish(Source.LOCAL, pair, localRate(rates, pair), now);
+        }
+    }
+
+    static BigDecimal localRate(RateMatrix rates, String pair) {
+        int separator = pair.indexOf('-');
+        if (separator < 0) {
+            return null;
+        }
+        String from = pair.substring(0, separator);
+        String to = pair.substring(separator + 1);
+        BigDecimal rate = rates.rate(from, to);
+        return Objects.nonNull(rate) ? rate : rates.crossRate(from, to);
+    }
+
+    public Set<String> pairs(Source source) {
+        return topics.keySet().stream()
+                .filter(key -> key.source() == source)
+                .map(Key::pair)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rates.stream.topics", topics, Map::size)
+                .description("Pairs with at least one rate stream subscriber")
+                .register(registry);
+        Gauge.builder("rates.stream.subscriptions", topics, values -> values.values().stream().mapToInt(topic -> topic.subscribers).sum())
+                .description("Subscriptions to a pair's rate stream")
+                .register(registry);
+    }
+
+    private static final class Topic {
+
+        private final Sinks.Many<RateUpdate> sink = Sinks.many().replay().latest();
+
+        // only changed inside the map's compute for this topic's key
+        private int subscribers;
+
+        private BigDecimal rate;
+
+        private synchronized void publish(RateUpdate update) {
+            if (Objects.nonNull(rate) && rate.compareTo(update.getRate()) == 0) {
+                return;
+            }
+            rate = update.getRate();
+            sink.tryEmitNext(update);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.ada.currencyapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.ada.currencyapi.config.HedgingProperties;
+import br.com.ada.currencyapi.exception.CurrencyException;
+import br.com.ada.currencyapi.exception.QuoteProviderUnavailableException;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class QuoteBatcherTest {
+
+    @Mock
+    private QuoteRatesClient quoteRatesClient;
+
+    private ScheduledExecutorService scheduler;
+
+    private SimpleMeterRegistry registry;
+
+    private QuoteBatcher quoteBatcher;
+
+    @BeforeEach
+    void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        registry = new SimpleMeterRegistry();
+        quoteBatcher = new QuoteBatcher(quoteRatesClient, new OutboundRateLimiter(1000, 100, Duration.ofSeconds(1)),
+                new UpstreamCircuitBreaker(5, Duration.ofSeconds(30), scheduler), disabledHedger(), scheduler, Duration.ofMillis(50), 3, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testPairsWithinWindowShareOneCall() throws Exception {
+        when(quoteRatesClient.getRates("USD-BRL,EUR-BRL")).thenReturn(completed("USDBRL", "5.50", "EURBRL", "6.00"));
+
+        CompletableFuture<QuoteRate> usd = quoteBatcher.submit("USD-BRL");
+        CompletableFuture<QuoteRate> eur = quoteBatcher.submit("EUR-BRL");
+        CompletableFuture<QuoteRate> usdAgain = quoteBatcher.submit("USD-BRL");
+
+        assertEquals(new BigDecimal("5.50"), usd.get(1, TimeUnit.SECONDS).high());
+        assertEquals(new BigDecimal("6.00"), eur.get(1, TimeUnit.SECONDS).high());
+        assertEquals(new BigDecimal("5.50"), usdAgain.get(1, TimeUnit.SECONDS).high());
+        verify(quoteRatesClient, times(1)).getRates(anyString());
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaitingForWindow() {
+        when(quoteRatesClient.getRates("USD-BRL,EUR-BRL,GBP-BRL")).thenReturn(completed("USDBRL", "5.50", "EURBRL", "6.00"));
+
+        quoteBatcher.submit("USD-BRL");
+        quoteBatcher.submit("EUR-BRL");
+        CompletableFuture<QuoteRate> gbp = quoteBatcher.submit("GBP-BRL");
+
+        assertTrue(gbp.isDone());
+        assertNull(gbp.join());
+    }
+
+    @Test
+    void testUnknownPairInBatchFallsBackToSingleCalls() throws Exception {
+        when(quoteRatesClient.getRates("USD-BRL,XXX-BRL")).thenReturn(CompletableFuture.failedFuture(notFound()));
+        when(quoteRatesClient.getRates("USD-BRL")).thenReturn(completed("USDBRL", "5.50"));
+        when(quoteRatesClient.getRates("XXX-BRL")).thenReturn(CompletableFuture.failedFuture(notFound()));
+
+        CompletableFuture<QuoteRate> usd = quoteBatcher.submit("USD-BRL");
+        CompletableFuture<QuoteRate> xxx = quoteBatcher.submit("XXX-BRL");
+
+        assertEquals(new BigDecimal("5.50"), usd.get(1, TimeUnit.SECONDS).high());
+        Exception exception = assertThrows(Exception.class, () -> xxx.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof FeignException.NotFound);
+    }
+
+    @Test
+    void testUpstreamCallsAreTimedPerPairAndStatus() throws Exception {
+        when(quoteRatesClient.getRates("USD-BRL,XXX-BRL")).thenReturn(CompletableFuture.failedFuture(notFound()));
+        when(quoteRatesClient.getRates("USD-BRL")).thenReturn(completed("USDBRL", "5.50"), CompletableFuture.failedFuture(notFound()));
+        when(quoteRatesClient.getRates("XXX-BRL")).thenReturn(CompletableFuture.failedFuture(notFound()));
+
+        CompletableFuture<QuoteRate> usd = quoteBatcher.submit("USD-BRL");
+        CompletableFuture<QuoteRate> xxx = quoteBatcher.submit("XXX-BRL");
+        usd.get(1, TimeUnit.SECONDS);
+        assertThrows(Exception.class, () -> xxx.get(1, TimeUnit.SECONDS));
+        CompletableFuture<QuoteRate> again = quoteBatcher.submit("USD-BRL");
+        assertThrows(Exception.class, () -> again.get(1, TimeUnit.SECONDS));
+
+        // pairs are tagged once quoted, a pair that never was stays under other
+        assertEquals(1, registry.get("upstream.requests").tags("pair", "USD-BRL", "status", "200").timer().count());
+        assertEquals(1, registry.get("upstream.requests").tags("pair", "USD-BRL", "status", "404").timer().count());
+        assertEquals(3, registry.get("upstream.requests").tags("pair", "other", "status", "404").timer().count());
+        assertTrue(registry.find("upstream.requests").tag("pair", "XXX-BRL").timers().isEmpty());
+    }
+
+    @Test
+    void testRateLimitedBatchWaitsOnSchedulerInsteadOfCaller() throws Exception {
+        quoteBatcher = new QuoteBatcher(quoteRatesClient, new OutboundRateLimiter(10, 1, Duration.ofSeconds(1), () -> 0L),
+                new UpstreamCircuitBreaker(5, Duration.ofSeconds(30), scheduler), disabledHedger(), scheduler, Duration.ZERO, 3, registry);
+        when(quoteRatesClient.getRates("USD-BRL")).thenReturn(completed("USDBRL", "5.50"));
+        when(quoteRatesClient.getRates("EUR-BRL")).thenReturn(completed("EURBRL", "6.00"));
+
+        CompletableFuture<QuoteRate> usd = quoteBatcher.submit("USD-BRL");
+        CompletableFuture<QuoteRate> eur = quoteBatcher.submit("EUR-BRL");
+
+        assertTrue(usd.isDone());
+        assertFalse(eur.isDone());
+        assertEquals(new BigDecimal("6.00"), eur.get(1, TimeUnit.SECONDS).high());
+    }
+
+    @Test
+    void testOpenCircuitFailsFastAndBackgroundProbeClosesIt() throws Exception {
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(2, Duration.ofMillis(100), scheduler);
+        quoteBatcher = new QuoteBatcher(quoteRatesClient, new OutboundRateLimiter(1000, 100, Duration.ofSeconds(1)),
+                circuitBreaker, disabledHedger(), scheduler, Duration.ZERO, 3, registry);
+        when(quoteRatesClient.getRates("USD-BRL")).thenReturn(
+                CompletableFuture.failedFuture(unavailable()),
+                CompletableFuture.failedFuture(unavailable()),
+                completed("USDBRL", "5.50"));
+
+        assertThrows(Exception.class, () -> quoteBatcher.submit("USD-BRL").get(1, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> quoteBatcher.submit("USD-BRL").get(1, TimeUnit.SECONDS));
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        Exception exception = assertThrows(Exception.class, () -> quoteBatcher.submit("USD-BRL").get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof QuoteProviderUnavailableException);
+        verify(quoteRatesClient, times(2)).getRates("USD-BRL");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (circuitBreaker.state() != UpstreamCircuitBreaker.State.CLOSED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertEquals(new BigDecimal("5.50"), quoteBatcher.submit("USD-BRL").get(1, TimeUnit.SECONDS).high());
+    }
+
+    @Test
+    void testRateLimiterSpacesCallsAfterBurst() {
+        long[] now = {0};
+        OutboundRateLimiter limiter = new OutboundRateLimiter(10, 2, Duration.ofMillis(250), () -> now[0]);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), limiter.reserve());
+        assertThrows(CurrencyException.class, limiter::reserve);
+
+        now[0] = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    void testTryReserveNeverQueues() {
+        long[] now = {0};
+        OutboundRateLimiter limiter = new OutboundRateLimiter(10, 1, Duration.ofMillis(250), () -> now[0]);
+
+        assertTrue(limiter.tryReserve());
+        assertFalse(limiter.tryReserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.reserve());
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(200);
+        assertTrue(limiter.tryReserve());
+    }
+
+    private RequestHedger disabledHedger() {
+        return new RequestHedger(new HedgingProperties(), scheduler, registry);
+    }
+
+    private CompletableFuture<QuoteRates> completed(String... keysAndHighs) {
+        Map<String, QuoteRate> quotes = new HashMap<>();
+        for (int i = 0; i < keysAndHighs.length; i += 2) {
+            quotes.put(keysAndHighs[i], new QuoteRate(new BigDecimal(keysAndHighs[i + 1]), null, 0L));
+        }
+        return CompletableFuture.completedFuture(new QuoteRates(quotes));
+    }
+
+    private FeignException unavailable() {
+        Request request = Request.create(Request.HttpMethod.GET, "/json/last", Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.ServiceUnavailable("Service Unavailable", request, null, Map.of());
+    }
+
+    private FeignException notFound() {
+        Request request = Request.create(Request.HttpMethod.GET, "/json/last", Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("CoinNotExists", request, null, Map.of());
+    }
+}
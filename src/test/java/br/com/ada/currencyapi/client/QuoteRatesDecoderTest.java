@@ -0,0 +1,37 @@
+package br.com.ada.currencyapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class QuoteRatesDecoderTest {
+
+    private static final String PAYLOAD = """
+            {"USDBRL":{"code":"USD","codein":"BRL","name":"Dólar Americano/Real Brasileiro","high":"5.1327",
+            "low":"5.1023","varBid":"0.0121","pctChange":"0.24","bid":"5.1201","ask":"5.1211",
+            "timestamp":"1715698799","create_date":"2024-05-14 11:59:59"},
+            "EURBRL":{"code":"EUR","codein":"BRL","high":5.5501,"bid":"5.5402","timestamp":1715698800,"extra":{"nested":[1,2]}}}
+            """;
+
+    @Test
+    void testParsesOnlyNumericFields() throws IOException {
+        QuoteRates rates = QuoteRatesDecoder.parse(new ByteArrayInputStream(PAYLOAD.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, rates.quotes().size());
+        assertEquals(new QuoteRate(new BigDecimal("5.1327"), new BigDecimal("5.1201"), 1715698799L), rates.forPair("USD-BRL"));
+        assertEquals(new QuoteRate(new BigDecimal("5.5501"), new BigDecimal("5.5402"), 1715698800L), rates.forPair("EUR-BRL"));
+        assertNull(rates.forPair("GBP-BRL"));
+    }
+
+    @Test
+    void testRejectsNonObjectPayload() {
+        assertThrows(IOException.class, () -> QuoteRatesDecoder.parse(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.ada.currencyapi.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import br.com.ada.currencyapi.config.UpstreamProperties;
+
+public class ReactiveQuoteRatesClientTest {
+
+    private WireMockServer wireMockServer;
+
+    private ReactiveQuoteRatesClient client;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setUrl(wireMockServer.baseUrl());
+        client = new ReactiveQuoteRatesClient(WebClient.builder(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testDecodesQuotesWithoutBlocking() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL,EUR-BRL"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("""
+                                {"USDBRL":{"high":"5.1327","bid":"5.1201","timestamp":"1715698799"},
+                                "EURBRL":{"high":"5.5501","bid":"5.5402","timestamp":"1715698800"}}
+                                """)));
+
+        QuoteRates rates = client.getRates("USD-BRL,EUR-BRL").get(5, TimeUnit.SECONDS);
+
+        assertEquals(new BigDecimal("5.1327"), rates.forPair("USD-BRL").high());
+        assertEquals(new BigDecimal("5.5402"), rates.forPair("EUR-BRL").bid());
+    }
+
+    @Test
+    void testErrorStatusIsVisibleToTheBatcher() {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/XXX-BRL"))
+                .willReturn(aResponse().withStatus(404).withBody("{\"code\":\"CoinNotExists\"}")));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.getRates("XXX-BRL").get(5, TimeUnit.SECONDS));
+
+        assertEquals(404, QuoteBatcher.statusOf(exception.getCause()));
+    }
+
+    @Test
+    void testHungProviderTimesOutAsAProviderFailure() {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL"))
+                .willReturn(aResponse().withBody("{}").withFixedDelay(5_000)));
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setUrl(wireMockServer.baseUrl());
+        properties.setReadTimeout(Duration.ofMillis(200));
+        ReactiveQuoteRatesClient impatient = new ReactiveQuoteRatesClient(WebClient.builder(), properties);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> impatient.getRates("USD-BRL").get(2, TimeUnit.SECONDS));
+
+        assertEquals(-1, QuoteBatcher.statusOf(exception.getCause()));
+    }
+}
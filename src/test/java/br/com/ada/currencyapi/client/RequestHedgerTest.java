@@ -0,0 +1,207 @@
+package br.com.ada.currencyapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.ada.currencyapi.config.HedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestHedgerTest {
+
+    private ScheduledExecutorService scheduler;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testDisabledHedgerCallsOnce() throws Exception {
+        RequestHedger hedger = new RequestHedger(new HedgingProperties(), scheduler, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.call(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("quote");
+        }, () -> true);
+
+        assertEquals("quote", result.get(1, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(-1, hedger.delayNanos());
+    }
+
+    @Test
+    void testNoHedgeUntilLatenciesAreKnown() throws Exception {
+        RequestHedger hedger = hedger(100);
+        AtomicInteger calls = new AtomicInteger();
+
+        hedger.call(() -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<String>();
+        }, () -> true);
+        Thread.sleep(100);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testSlowCallIsHedgedAndTheLoserCancelled() throws Exception {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        List<CompletableFuture<String>> calls = new ArrayList<>(List.of(slow, CompletableFuture.completedFuture("hedge")));
+
+        CompletableFuture<String> result = hedger.call(() -> calls.remove(0), () -> true);
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        assertTrue(slow.isCancelled());
+        assertEquals(1, registry.get("upstream.hedges.sent").functionCounter().count());
+        assertEquals(1, registry.get("upstream.hedges.won").functionCounter().count());
+    }
+
+    @Test
+    void testFirstCallStillWinsAfterTheHedgeWentOut() throws Exception {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        List<CompletableFuture<String>> calls = new ArrayList<>(List.of(slow, hedge));
+
+        CompletableFuture<String> result = hedger.call(() -> calls.remove(0), () -> true);
+        awaitCount("upstream.hedges.sent", 1);
+        slow.complete("first");
+
+        assertEquals("first", result.get(1, TimeUnit.SECONDS));
+        assertTrue(hedge.isCancelled());
+        assertEquals(0, registry.get("upstream.hedges.won").functionCounter().count());
+    }
+
+    @Test
+    void testFailsOnlyWhenEveryCallFailed() throws Exception {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        List<CompletableFuture<String>> calls = new ArrayList<>(List.of(slow, CompletableFuture.failedFuture(new IllegalStateException("hedge"))));
+
+        CompletableFuture<String> result = hedger.call(() -> calls.remove(0), () -> true);
+        awaitCount("upstream.hedges.sent", 1);
+        assertFalse(result.isDone());
+        slow.completeExceptionally(new IllegalStateException("first"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("hedge", exception.getCause().getMessage());
+    }
+
+    @Test
+    void testBudgetCapsTheHedges() throws Exception {
+        RequestHedger hedger = hedger(25);
+        // 32 calls at 25% earn 8 hedges, twelve more calls would earn 3 but the carried budget stops at 10
+        warmUp(hedger);
+
+        for (int i = 0; i < 12; i++) {
+            hedger.call(CompletableFuture<String>::new, () -> true);
+        }
+        awaitCount("upstream.hedges.skipped", 2);
+
+        assertEquals(10, registry.get("upstream.hedges.sent").functionCounter().count());
+    }
+
+    @Test
+    void testDeniedPermitSkipsTheHedge() throws Exception {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.call(() -> {
+            calls.incrementAndGet();
+            return slow;
+        }, () -> false);
+        awaitCount("upstream.hedges.skipped", 1);
+        slow.complete("first");
+
+        assertEquals("first", result.get(1, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, registry.get("upstream.hedges.sent").functionCounter().count());
+    }
+
+    @Test
+    void testDelayFollowsThePercentile() {
+        RequestHedger hedger = hedger(100);
+
+        for (int i = 1; i <= 32; i++) {
+            hedger.record(TimeUnit.MILLISECONDS.toNanos(i * 10L));
+        }
+
+        // the 95th percentile of 10, 20, ..., 320 ms
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(310), hedger.delayNanos());
+    }
+
+    @Test
+    void testWonHedgeRecordsTheFirstCallsElapsedTime() {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setBudgetPercent(100);
+        properties.setPercentile(0.5);
+        properties.setMinDelay(Duration.ZERO);
+        RequestHedger hedger = new RequestHedger(properties, scheduler, registry);
+        for (int i = 0; i < 32; i++) {
+            hedger.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        // the cancelled first calls ran for at least the 20 ms delay, the hedges answered at once
+        for (int i = 0; i < 32; i++) {
+            List<CompletableFuture<String>> calls = new ArrayList<>(List.of(new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+            hedger.call(() -> calls.remove(0), () -> true).join();
+        }
+
+        assertEquals(32, registry.get("upstream.hedges.won").functionCounter().count());
+        assertTrue(hedger.delayNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    private RequestHedger hedger(double budgetPercent) {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setBudgetPercent(budgetPercent);
+        properties.setMinDelay(Duration.ofMillis(50));
+        return new RequestHedger(properties, scheduler, registry);
+    }
+
+    private void warmUp(RequestHedger hedger) {
+        for (int i = 0; i < 32; i++) {
+            hedger.call(() -> CompletableFuture.completedFuture("fast"), () -> true).join();
+        }
+    }
+
+    private void awaitCount(String counter, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (registry.get(counter).functionCounter().count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, registry.get(counter).functionCounter().count());
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.ada.currencyapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.ada.currencyapi.exception.CurrencyException;
+
+@ExtendWith(MockitoExtension.class)
+public class SingleFlightQuoteClientTest {
+
+    @Mock
+    private QuoteBatcher quoteBatcher;
+
+    private SingleFlightQuoteClient quoteClient;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        quoteClient = new SingleFlightQuoteClient(quoteBatcher);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallsShareOneUpstreamCall() throws Exception {
+        CompletableFuture<QuoteRate> upstream = new CompletableFuture<>();
+        QuoteRate quote = new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L);
+        when(quoteBatcher.submit("USD-BRL")).thenReturn(upstream);
+
+        List<CompletableFuture<QuoteRate>> results = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> quoteClient.getAsync("USD-BRL").join(), executor))
+                .toList();
+        TimeUnit.MILLISECONDS.sleep(200);
+        upstream.complete(quote);
+
+        for (CompletableFuture<QuoteRate> result : results) {
+            assertSame(quote, result.get(5, TimeUnit.SECONDS));
+        }
+        verify(quoteBatcher, times(1)).submit("USD-BRL");
+    }
+
+    @Test
+    void testFailureIsSharedAndNotCached() {
+        when(quoteBatcher.submit("USD-BRL")).thenReturn(CompletableFuture.failedFuture(new CurrencyException("upstream down")));
+
+        CompletionException first = assertThrows(CompletionException.class, () -> quoteClient.getAsync("USD-BRL").join());
+        CompletionException second = assertThrows(CompletionException.class, () -> quoteClient.getAsync("USD-BRL").join());
+
+        assertEquals("upstream down", first.getCause().getMessage());
+        assertEquals("upstream down", second.getCause().getMessage());
+        verify(quoteBatcher, times(2)).submit("USD-BRL");
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.ada.currencyapi.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import br.com.ada.currencyapi.config.UpstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UpstreamConnectionPoolTest {
+
+    private static final String BODY = "{\"USDBRL\":{\"high\":\"5.1327\",\"bid\":\"5.1201\",\"timestamp\":\"1715698799\"}}";
+
+    private WireMockServer wireMockServer;
+
+    private SimpleMeterRegistry registry;
+
+    private UpstreamConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        registry = new SimpleMeterRegistry();
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setConnectionIdleTimeout(Duration.ofMillis(1));
+        pool = new UpstreamConnectionPool(properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testReusesKeepAliveConnection() throws IOException {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL")).willReturn(aResponse().withBody(BODY)));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(BODY, fetch("/json/last/USD-BRL"));
+        }
+
+        assertEquals(1, registry.get("upstream.pool.opened").functionCounter().count());
+        assertEquals(3, registry.get("upstream.pool.wait").tag("outcome", "leased").timer().count());
+        assertEquals(1, registry.get("upstream.pool.connections").tag("state", "available").gauge().value());
+        assertEquals(0, registry.get("upstream.pool.connections").tag("state", "leased").gauge().value());
+    }
+
+    @Test
+    void testAsksForGzipAndInflatesTheBody() throws IOException {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL")).willReturn(aResponse()
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzip(BODY))));
+
+        assertEquals(BODY, fetch("/json/last/USD-BRL"));
+
+        wireMockServer.verify(getRequestedFor(urlEqualTo("/json/last/USD-BRL")).withHeader("Accept-Encoding", containing("gzip")));
+    }
+
+    @Test
+    void testSweepEvictsIdleConnections() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL")).willReturn(aResponse().withBody(BODY)));
+        fetch("/json/last/USD-BRL");
+        Thread.sleep(20);
+
+        pool.evict();
+
+        assertEquals(0, pool.stats().getAvailable());
+        assertEquals(1, registry.get("upstream.pool.evictions").functionCounter().count());
+        fetch("/json/last/USD-BRL");
+        assertEquals(2, registry.get("upstream.pool.opened").functionCounter().count());
+    }
+
+    @Test
+    void testSlowResponseTimesOut() {
+        wireMockServer.stubFor(get(urlEqualTo("/json/last/USD-BRL")).willReturn(aResponse().withBody(BODY).withFixedDelay(2_000)));
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setReadTimeout(Duration.ofMillis(200));
+        UpstreamConnectionPool impatient = new UpstreamConnectionPool(properties, new SimpleMeterRegistry());
+
+        try {
+            assertThrows(SocketTimeoutException.class, () -> fetch(impatient, "/json/last/USD-BRL"));
+        } finally {
+            impatient.close();
+        }
+    }
+
+    @Test
+    void testCloseCancelsTheSweep() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.initialize();
+        try {
+            UpstreamConnectionPool scheduled = new UpstreamConnectionPool(new UpstreamProperties(), scheduler, new SimpleMeterRegistry());
+            assertEquals(1, scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+
+            scheduled.close();
+
+            assertEquals(0, scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private String fetch(String path) throws IOException {
+        return fetch(pool, path);
+    }
+
+    private String fetch(UpstreamConnectionPool connectionPool, String path) throws IOException {
+        return connectionPool.httpClient().execute(new HttpGet(wireMockServer.baseUrl() + path),
+                response -> EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -2,13 +2,18 @@ package br.com.ada.currencyapi.controller;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -17,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -26,6 +32,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import br.com.ada.currencyapi.domain.Currency;
 import br.com.ada.currencyapi.domain.CurrencyRequest;
 import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 @AutoConfigureMockMvc
@@ -37,6 +45,12 @@ public class CurrencyControllerIntegrationTest {
     @Autowired
     private CurrencyRepository currencyRepository;
 
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void testGetReturns200() throws Exception {
         assertEquals(0, currencyRepository.count());
@@ -53,6 +67,52 @@ public class CurrencyControllerIntegrationTest {
         currencyRepository.deleteAll();
     }
 
+    @Test
+    void testGetReturns304UntilCurrenciesChange() throws Exception {
+        String eTag = mockMvc.perform(get("/currency"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/currency").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        currencyRepository.save(new Currency(null, "BRL", "Real", null));
+        mockMvc.perform(get("/currency").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void testPagesAndStreamListEveryCurrencyInIdOrder() throws Exception {
+        Long brl = currencyRepository.save(new Currency(null, "BRL", "Real", null)).getId();
+        Long usd = currencyRepository.save(new Currency(null, "USD", "Dollar", null)).getId();
+        Long eur = currencyRepository.save(new Currency(null, "EUR", "Euro", null)).getId();
+
+        mockMvc.perform(get("/currency/page?size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].label").value(brl + " - BRL"))
+                .andExpect(jsonPath("$.next").value(usd));
+        mockMvc.perform(get("/currency/page?size=2&after=" + usd))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].label").value(eur + " - EUR"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+
+        MvcResult result = mockMvc.perform(get("/currency/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("{\"label\":\"%d - BRL\"}\n{\"label\":\"%d - USD\"}\n{\"label\":\"%d - EUR\"}\n"
+                        .formatted(brl, usd, eur)));
+
+        currencyRepository.deleteAll();
+    }
+
     @Test
     void testCreateReturns200() throws Exception {
         CurrencyRequest request = CurrencyRequest.builder()
@@ -95,6 +155,87 @@ public class CurrencyControllerIntegrationTest {
         currencyRepository.deleteAll();
     }
 
+    @Test
+    void testImportJsonSkipsDuplicatesAndRefreshesRates() throws Exception {
+        currencyRepository.save(new Currency(null, "EUR", "Euro", null));
+        mockMvc.perform(get("/currency/convert?from=EUR&to=BRL&amount=1"))
+                .andExpect(status().isNotFound());
+
+        var content = new ObjectMapper().writeValueAsString(List.of(
+                CurrencyRequest.builder().name("USD").description("Dollar").exchanges(new HashMap<>(Map.of("BRL", new BigDecimal("5.00")))).build(),
+                CurrencyRequest.builder().name("EUR").description("Euro").build(),
+                CurrencyRequest.builder().name("USD").description("Dollar").build()));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/currency/import")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(content)
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.duplicates", hasSize(2)))
+                .andDo(print());
+
+        mockMvc.perform(get("/currency/convert?from=USD&to=BRL&amount=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(new BigDecimal("10.0")));
+        assertEquals(1, exchangeRateRepository.count());
+
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void testImportCsvReturns201() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/currency/import")
+                                .contentType("text/csv")
+                                .content("""
+                                        name,description,exchanges
+                                        USD,"Dollar, US",BRL:5.00;EUR:0.92
+                                        JPY,Yen,
+                                        """)
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.duplicates", hasSize(0)))
+                .andDo(print());
+
+        assertEquals("Dollar, US", currencyRepository.findByName("USD").getDescription());
+        assertEquals(2, exchangeRateRepository.count());
+
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void testPatchExchangesUpdatesRatesInPlace() throws Exception {
+        Currency currency = currencyRepository.save(new Currency(null, "USD", "Dollar",
+                Map.of("BRL", new BigDecimal("5.00"), "EUR", new BigDecimal("0.90"))));
+        mockMvc.perform(get("/currency/convert?from=USD&to=BRL&amount=2"))
+                .andExpect(jsonPath("$.amount").value(new BigDecimal("10.0")));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.patch("/currency/" + currency.getId() + "/exchanges")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"upsert\":{\"BRL\":5.50,\"JPY\":150},\"remove\":[\"EUR\"]}")
+                )
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        mockMvc.perform(get("/currency/convert?from=USD&to=BRL&amount=2"))
+                .andExpect(jsonPath("$.amount").value(new BigDecimal("11.0")));
+        mockMvc.perform(get("/currency/convert?from=USD&to=JPY&amount=2"))
+                .andExpect(jsonPath("$.amount").value(new BigDecimal("300")));
+        mockMvc.perform(get("/currency/convert?from=USD&to=EUR&amount=2"))
+                .andExpect(status().isNotFound());
+        assertEquals(Map.of("BRL", new BigDecimal("5.50"), "JPY", new BigDecimal("150.00")),
+                currencyRepository.findWithExchangesById(currency.getId()).orElseThrow().getExchanges());
+
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
     @Test
     void testConvertReturns200() throws Exception {
         currencyRepository.save(new Currency(1L, "BRL", "BRL", Map.of("USD", BigDecimal.TEN)));
@@ -138,18 +279,26 @@ public class CurrencyControllerIntegrationTest {
 
     @Test
     void convertUsingExternalApiReturns200() throws Exception {
-        mockMvc.perform(
+        MvcResult result = mockMvc.perform(
                         get("/currency/api-convert?from=USD&to=BRL&amount=2")
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andDo(print());
     }
 
     @Test
     void convertUsingExternalApiReturns500() throws Exception {
-        mockMvc.perform(
+        MvcResult result = mockMvc.perform(
                         get("/currency/api-convert?from=XXX&to=XXX&amount=2")
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().is5xxServerError())
                 .andExpect(jsonPath("$").value("Error while processing your request. Try again later."))
                 .andDo(print());
@@ -167,4 +316,15 @@ public class CurrencyControllerIntegrationTest {
                 .andDo(print());
     }
 
+    @Test
+    void testRequestsAreTimed() throws Exception {
+        mockMvc.perform(
+                        get("/currency")
+                )
+                .andExpect(status().isOk());
+
+        assertNotNull(meterRegistry.find("currency.service").tag("method", "get").timer());
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("method", "findAll").timer());
+    }
+
 }
@@ -0,0 +1,104 @@
+package br.com.ada.currencyapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.repository.ExchangeRateRepository;
+import br.com.ada.currencyapi.service.RateStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "currency.prefetch.enabled=false")
+public class CurrencyControllerRateStreamTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private RateStream rateStream;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private ThreadPoolTaskExecutor applicationTaskExecutor;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @AfterEach
+    void cleanUp() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void testLocalExchangeChangesArePushedToSubscribers() throws Exception {
+        HttpResponse<String> created = send("POST", "/currency", "{\"name\":\"USD\",\"description\":\"Dollar\",\"exchanges\":{\"BRL\":5.10}}");
+        assertEquals(201, created.statusCode());
+        long id = currencyRepository.findByName("USD").getId();
+
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        CompletableFuture<HttpResponse<Stream<String>>> stream = httpClient.sendAsync(
+                HttpRequest.newBuilder(uri("/currency/rates/stream?pairs=USD-BRL&source=LOCAL")).build(),
+                HttpResponse.BodyHandlers.ofLines());
+        stream.thenAccept(response -> response.body().filter(line -> line.startsWith("data:")).forEach(events::add));
+
+        assertTrue(events.poll(10, TimeUnit.SECONDS).contains("\"rate\":5.10"));
+
+        send("PATCH", "/currency/%d/exchanges".formatted(id), "{\"upsert\":{\"EUR\":0.92}}");
+        send("PATCH", "/currency/%d/exchanges".formatted(id), "{\"upsert\":{\"BRL\":5.30}}");
+
+        String moved = events.poll(10, TimeUnit.SECONDS);
+        assertTrue(moved.contains("\"pair\":\"USD-BRL\"") && moved.contains("\"rate\":5.30"), moved);
+        assertEquals(1, rateStream.pairs(RateStream.Source.LOCAL).size());
+
+        stream.join().body().close();
+    }
+
+    @Test
+    void testAsyncRequestsRunOnTheBoundedApplicationExecutor() {
+        assertSame(applicationTaskExecutor, ReflectionTestUtils.getField(handlerAdapter, "taskExecutor"));
+        assertEquals(8, applicationTaskExecutor.getMaxPoolSize());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:%d%s".formatted(port, path));
+    }
+}
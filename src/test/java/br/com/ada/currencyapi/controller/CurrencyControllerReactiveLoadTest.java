@@ -0,0 +1,116 @@
+package br.com.ada.currencyapi.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "currency.upstream.client=reactive",
+        "server.tomcat.threads.max=4",
+        "currency.upstream.max-requests-per-second=100000",
+        "currency.upstream.burst=100000",
+        "currency.upstream.batch-window=0",
+        "currency.upstream.max-batch-size=1",
+        "currency.upstream.max-connections=1000"
+})
+public class CurrencyControllerReactiveLoadTest {
+
+    private static final int REQUESTS = 200;
+
+    private static final int UPSTREAM_DELAY_MILLIS = 1000;
+
+    // matches server.tomcat.threads.max above
+    private static final int TOMCAT_THREADS = 4;
+
+    private static WireMockServer wireMockServer;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startUpstream() {
+        wireMockServer = new WireMockServer(options()
+                .dynamicPort()
+                .globalTemplating(true)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(8));
+        wireMockServer.start();
+        // one templated stub answers every CNNNN-BRL pair with its own key
+        wireMockServer.stubFor(get(urlPathMatching("/json/last/C[0-9]+-BRL"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"{{regexExtract request.path 'C[0-9]+'}}BRL\":{\"high\":\"2.0\",\"bid\":\"1.9\",\"timestamp\":\"1715698799\"}}")
+                        .withFixedDelay(UPSTREAM_DELAY_MILLIS)));
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        wireMockServer.stop();
+    }
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("currency.upstream.url", () -> wireMockServer.baseUrl());
+    }
+
+    @Test
+    void testHundredsOfConversionsShareAHandfulOfThreads() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(send(httpClient, i));
+        }
+        responses.forEach(response -> assertEquals(200, response.join().statusCode()));
+
+        // a request holding its Tomcat thread while it waits would cap the calls in flight at the thread count
+        int peak = peakUpstreamCallsInFlight();
+        assertTrue(peak > TOMCAT_THREADS * 10, "at most %d upstream calls were in flight".formatted(peak));
+    }
+
+    private int peakUpstreamCallsInFlight() {
+        long[] arrivals = wireMockServer.getAllServeEvents().stream()
+                .mapToLong(event -> event.getRequest().getLoggedDate().getTime())
+                .sorted()
+                .toArray();
+        int peak = 0;
+        for (int first = 0, last = 0; last < arrivals.length; last++) {
+            while (arrivals[last] - arrivals[first] >= UPSTREAM_DELAY_MILLIS) {
+                first++;
+            }
+            peak = Math.max(peak, last - first + 1);
+        }
+        return peak;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpClient httpClient, int currency) {
+        URI uri = URI.create("http://localhost:%d/currency/api-convert?from=C%04d&to=BRL&amount=2".formatted(port, currency));
+        return httpClient.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
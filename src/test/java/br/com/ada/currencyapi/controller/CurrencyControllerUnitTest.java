@@ -5,27 +5,44 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import br.com.ada.currencyapi.config.StreamProperties;
+import br.com.ada.currencyapi.domain.BatchConvertCurrencyResponse;
+import br.com.ada.currencyapi.domain.ConvertCurrencyRequest;
 import br.com.ada.currencyapi.domain.ConvertCurrencyResponse;
 import br.com.ada.currencyapi.domain.Currency;
+import br.com.ada.currencyapi.domain.RateUpdate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -33,9 +50,14 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import reactor.core.publisher.Flux;
+
 import br.com.ada.currencyapi.domain.CurrencyRequest;
 import br.com.ada.currencyapi.domain.CurrencyResponse;
+import br.com.ada.currencyapi.service.CurrencyImporter;
+import br.com.ada.currencyapi.service.CurrencyListCache;
 import br.com.ada.currencyapi.service.CurrencyService;
+import br.com.ada.currencyapi.service.RateStream;
 @AutoConfigureMockMvc
 @ExtendWith(MockitoExtension.class)
 public class CurrencyControllerUnitTest {
@@ -46,6 +68,18 @@ public class CurrencyControllerUnitTest {
     @Mock
     private CurrencyService currencyService;
 
+    @Mock
+    private CurrencyImporter currencyImporter;
+
+    @Mock
+    private CurrencyListCache currencyListCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private StreamProperties streamProperties = new StreamProperties();
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -55,20 +89,128 @@ public class CurrencyControllerUnitTest {
 
     @Test
     void testGetReturns200() throws Exception {
-        Mockito.when(currencyService.get()).thenReturn(List.of(CurrencyResponse.builder()
-                        .label("1 - USD")
-                .build()));
+        Mockito.when(currencyListCache.current()).thenReturn(rendered("[{\"label\":\"1 - USD\"}]"));
 
         mockMvc.perform(
                         MockMvcRequestBuilders.get("/currency")
                                 .contentType(MediaType.APPLICATION_JSON)
                 )
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1\""))
                 .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].label").value("1 - USD"))
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    void testGetReturnsGzippedListWhenAccepted() throws Exception {
+        String json = "[" + "{\"label\":\"1 - USD\"},".repeat(50) + "{\"label\":\"2 - EUR\"}]";
+        Mockito.when(currencyListCache.current()).thenReturn(rendered(json));
+
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("Accept-Encoding", "deflate, gzip;q=0.8")
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Content-Encoding", "gzip"))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1-gzip\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept-Encoding"))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertEquals(json, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("Accept-Encoding", "gzip;q=0")
+                )
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("Content-Encoding"))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(51)));
+    }
+
+    @Test
+    void testGetReturns304ForTheTagOfEitherEncoding() throws Exception {
+        String json = "[" + "{\"label\":\"1 - USD\"},".repeat(50) + "{\"label\":\"2 - EUR\"}]";
+        Mockito.when(currencyListCache.current()).thenReturn(rendered(json));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("Accept-Encoding", "gzip")
+                                .header("If-None-Match", "\"a-1\"")
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1-gzip\""));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("If-None-Match", "\"a-1-gzip\"")
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1\""));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("If-None-Match", "\"a-0-gzip\"")
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1\""));
+    }
+
+    @Test
+    void testGetReturns304WhenTagMatches() throws Exception {
+        Mockito.when(currencyListCache.current()).thenReturn(rendered("[]"));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/currency")
+                                .header("If-None-Match", "\"a-1\"")
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"a-1\""))
+                .andExpect(MockMvcResultMatchers.content().bytes(new byte[0]))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    void testStreamWritesOneCurrencyPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CurrencyResponse> consumer = invocation.getArgument(0);
+            consumer.accept(CurrencyResponse.builder().label("1 - USD").build());
+            consumer.accept(CurrencyResponse.builder().label("2 - EUR").build());
+            return null;
+        }).when(currencyService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/currency/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string("{\"label\":\"1 - USD\"}\n{\"label\":\"2 - EUR\"}\n"));
+    }
+
+    @Test
+    void testStreamRatesSendsServerSentEvents() throws Exception {
+        RateUpdate update = RateUpdate.builder().pair("USD-BRL").rate(new BigDecimal("5.10")).timestamp(1715698799L).build();
+        Mockito.when(currencyService.subscribeRates(RateStream.Source.QUOTE, List.of("USD-BRL", "EUR-BRL")))
+                .thenReturn(Flux.just(update));
+
+        MvcResult result = mockMvc.perform(get("/currency/rates/stream?pairs=USD-BRL,EUR-BRL"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // the heartbeats keep the stream open, so wait for the event instead of the end of the response
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (result.getResponse().getContentAsString().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("event:rate\ndata:{\"pair\":\"USD-BRL\",\"rate\":5.10,\"timestamp\":1715698799}\n\n",
+                result.getResponse().getContentAsString());
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, result.getResponse().getContentType());
+    }
+
     @Test
     void testConvertReturns200() throws Exception {
         Mockito.when(currencyService.convert(any())).thenReturn(
@@ -84,19 +226,61 @@ public class CurrencyControllerUnitTest {
     }
 
     @Test
-    void testConvertUsingExternalApiReturns200() throws Exception {
-        Mockito.when(currencyService.convertUsingExternalApi(any())).thenReturn(
+    void testConvertAtBindsTheInstant() throws Exception {
+        Mockito.when(currencyService.convert(Mockito.argThat(request ->
+                Instant.parse("2024-05-14T15:00:00Z").equals(request.getAt())))).thenReturn(
                 ConvertCurrencyResponse.builder()
-                        .amount(new BigDecimal("50.0"))
+                        .amount(new BigDecimal("25.5"))
                         .build());
         mockMvc.perform(
+                        get("/currency/convert?from=USD&to=BRL&amount=5&at=2024-05-14T15:00:00Z")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(new BigDecimal("25.5")));
+    }
+
+    @Test
+    void testConvertUsingExternalApiReturns200() throws Exception {
+        Mockito.when(currencyService.convertUsingExternalApiAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                ConvertCurrencyResponse.builder()
+                        .amount(new BigDecimal("50.0"))
+                        .build()));
+        Mockito.when(currencyService.quoteFreshness(any(ConvertCurrencyRequest.class), any(ConvertCurrencyResponse.class)))
+                .thenReturn(Duration.ofSeconds(25));
+        MvcResult result = mockMvc.perform(
                         get("/currency/api-convert?from=BRL&to=USD&amount=5")
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "max-age=25, public"))
                 .andExpect(jsonPath("$.amount").value(new BigDecimal("50.0")))
                 .andDo(print());
     }
 
+    @Test
+    void testConvertBatchReturns200() throws Exception {
+        Mockito.when(currencyService.convertBatch(any())).thenReturn(List.of(
+                BatchConvertCurrencyResponse.builder().from("BRL").to("USD").amount(new BigDecimal("50.0")).build(),
+                BatchConvertCurrencyResponse.builder().from("BRL").to("XXX").error("Exchange XXX not found for BRL").build()));
+        var content = new ObjectMapper().writeValueAsString(List.of(
+                ConvertCurrencyRequest.builder().from("BRL").to("USD").amount(new BigDecimal("5")).build(),
+                ConvertCurrencyRequest.builder().from("BRL").to("XXX").amount(new BigDecimal("5")).build()));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/currency/convert/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(content)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].amount").value(new BigDecimal("50.0")))
+                .andExpect(jsonPath("$[1].error").value("Exchange XXX not found for BRL"))
+                .andDo(print());
+    }
+
     @Test
     void testCreateCurrencyReturns200() throws Exception {
         Mockito.when(currencyService.create(Mockito.any(CurrencyRequest.class))).thenReturn(5L);
@@ -146,4 +330,12 @@ public class CurrencyControllerUnitTest {
     }
 
 
+
+    private CurrencyListCache.Rendered rendered(String json) throws Exception {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return new CurrencyListCache.Rendered("\"a-1\"", json.getBytes(StandardCharsets.UTF_8), gzip.toByteArray());
+    }
 }
@@ -0,0 +1,103 @@
+package br.com.ada.currencyapi.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=4",
+        "currency.upstream.max-requests-per-second=1000",
+        "currency.upstream.burst=1000",
+        "currency.upstream.batch-window=0",
+        "currency.upstream.max-batch-size=1"
+})
+public class CurrencyControllerVirtualThreadsLoadTest {
+
+    private static final int REQUESTS = 40;
+
+    private static final int UPSTREAM_DELAY_MILLIS = 500;
+
+    private static WireMockServer wireMockServer;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startUpstream() {
+        wireMockServer = new WireMockServer(options().dynamicPort().containerThreads(REQUESTS * 2));
+        wireMockServer.start();
+        for (int i = 0; i <= REQUESTS; i++) {
+            String code = "C%02d".formatted(i);
+            wireMockServer.stubFor(get(urlEqualTo("/json/last/%s-BRL".formatted(code)))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody("{\"%sBRL\":{\"high\":\"2.0\",\"bid\":\"1.9\",\"timestamp\":\"1715698799\"}}".formatted(code))
+                            .withFixedDelay(i < REQUESTS ? UPSTREAM_DELAY_MILLIS : 0)));
+        }
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        wireMockServer.stop();
+    }
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("currency.upstream.url", () -> wireMockServer.baseUrl());
+    }
+
+    @Test
+    void testBlockingConversionsAreNotBoundedByTomcatThreads() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // the last stub answers without delay and only warms up the dispatcher and the Feign client
+        assertEquals(200, send(httpClient, REQUESTS).join().statusCode());
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(send(httpClient, i));
+        }
+        responses.forEach(response -> assertEquals(200, response.join().statusCode()));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // four platform workers would need REQUESTS / 4 sequential upstream round trips, i.e. at least 5 seconds
+        assertTrue(elapsedMillis < (long) REQUESTS / 4 * UPSTREAM_DELAY_MILLIS / 2,
+                "%d concurrent conversions took %d ms".formatted(REQUESTS, elapsedMillis));
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpClient httpClient, int currency) {
+        URI uri = URI.create("http://localhost:%d/currency/api-convert?from=C%02d&to=BRL&amount=2".formatted(port, currency));
+        return httpClient.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.ada.currencyapi.repository;
+
+import br.com.ada.currencyapi.domain.Currency;
+import br.com.ada.currencyapi.domain.ExchangeRate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+// keeps the generated ids seen by the other repository tests independent of the run order
+@DirtiesContext
+public class ExchangeRateRepositoryTest {
+
+    @Autowired
+    CurrencyRepository currencyRepository;
+
+    @Autowired
+    ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    private Long usdId;
+
+    @BeforeEach
+    void setup() {
+        usdId = currencyRepository.save(new Currency(null, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.00")))).getId();
+        exchangeRateRepository.save(new ExchangeRate("USD", "BRL", usdId, new BigDecimal("5.00")));
+    }
+
+    @Test
+    void testFindRateReturnsDirectRate() {
+        var lookup = exchangeRateRepository.findRate("USD", "BRL");
+        assertThat(lookup).isPresent();
+        assertThat(lookup.get().getCurrencyId()).isEqualTo(usdId);
+        assertThat(lookup.get().getRate()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void testFindRateTellsMissingExchangeFromUnknownCoin() {
+        var lookup = exchangeRateRepository.findRate("USD", "EUR");
+        assertThat(lookup).isPresent();
+        assertThat(lookup.get().getRate()).isNull();
+
+        assertThat(exchangeRateRepository.findRate("EUR", "BRL")).isEmpty();
+    }
+
+    @Test
+    void testSavingNewRateInsertsWithoutSelectingFirst() {
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        exchangeRateRepository.save(new ExchangeRate("USD", "EUR", usdId, new BigDecimal("0.92")));
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testDeleteByCurrencyIdRemovesOwnedRates() {
+        assertThat(exchangeRateRepository.deleteByCurrencyId(usdId)).isEqualTo(1);
+        assertThat(exchangeRateRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ConversionGraphTest {
+
+    private final RateMatrix matrix = RateMatrix.of(1L, List.of(
+            new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5"), "EUR", new BigDecimal("0.5"))),
+            new RateMatrix.Row(2L, "JPY", "Yen", Map.of("USD", new BigDecimal("0.01"))),
+            new RateMatrix.Row(3L, "CHF", "Franc", Map.of("JPY", new BigDecimal("160")))));
+
+    @Test
+    void testInverseAndMultiHopRates() {
+        ConversionGraph graph = ConversionGraph.build(matrix, ConversionGraph.Mode.FEWEST_HOPS, 4);
+
+        assertEquals(0, new BigDecimal("0.2").compareTo(graph.rate("BRL", "USD")));
+        assertEquals(0, new BigDecimal("10").compareTo(graph.rate("EUR", "BRL")));
+        assertEquals(0, new BigDecimal("0.05").compareTo(graph.rate("JPY", "BRL")));
+        assertEquals(2, graph.hops("JPY", "BRL"));
+        assertEquals(3, graph.hops("EUR", "CHF"));
+        assertEquals(0, new BigDecimal("8").compareTo(graph.rate("CHF", "BRL")));
+        assertNull(graph.rate("BRL", "XXX"));
+    }
+
+    @Test
+    void testMaxHopsLimitsPaths() {
+        ConversionGraph graph = ConversionGraph.build(matrix, ConversionGraph.Mode.FEWEST_HOPS, 2);
+
+        assertEquals(2, graph.hops("JPY", "BRL"));
+        assertNull(graph.rate("EUR", "CHF"));
+    }
+
+    @Test
+    void testBestRatePrefersLongerCheaperPath() {
+        RateMatrix arbitrage = RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "AAA", "A", Map.of("CCC", new BigDecimal("2"), "BBB", new BigDecimal("2"))),
+                new RateMatrix.Row(2L, "BBB", "B", Map.of("CCC", new BigDecimal("3")))));
+
+        assertEquals(0, new BigDecimal("2").compareTo(ConversionGraph.build(arbitrage, ConversionGraph.Mode.FEWEST_HOPS, 4).rate("AAA", "CCC")));
+        assertEquals(0, new BigDecimal("6").compareTo(ConversionGraph.build(arbitrage, ConversionGraph.Mode.BEST_RATE, 4).rate("AAA", "CCC")));
+    }
+
+    @Test
+    void testBestRateIgnoresLoopsThroughInconsistentReciprocals() {
+        // BBB -> CCC -> BBB triples the amount, a path may not go around it
+        RateMatrix inconsistent = RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "AAA", "A", Map.of("BBB", new BigDecimal("2"))),
+                new RateMatrix.Row(2L, "BBB", "B", Map.of("CCC", new BigDecimal("1"))),
+                new RateMatrix.Row(3L, "CCC", "C", Map.of("BBB", new BigDecimal("3")))));
+        ConversionGraph graph = ConversionGraph.build(inconsistent, ConversionGraph.Mode.BEST_RATE, 4);
+
+        assertEquals(0, new BigDecimal("2").compareTo(graph.rate("AAA", "CCC")));
+        assertEquals(2, graph.hops("AAA", "CCC"));
+        assertEquals(0, new BigDecimal("2").compareTo(graph.rate("AAA", "BBB")));
+        assertEquals(1, graph.hops("AAA", "BBB"));
+    }
+
+    @Test
+    void testIncrementalInsertMatchesFullBuild() {
+        ConversionGraph graph = ConversionGraph.build(matrix, ConversionGraph.Mode.FEWEST_HOPS, 4);
+        RateMatrix.Row gbp = new RateMatrix.Row(4L, "GBP", "Pound", Map.of("EUR", new BigDecimal("1.2"), "CHF", new BigDecimal("1.1")));
+        RateMatrix next = matrix.with(gbp);
+
+        ConversionGraph incremental = graph.withCurrency(matrix, next, gbp);
+        ConversionGraph full = ConversionGraph.build(next, ConversionGraph.Mode.FEWEST_HOPS, 4);
+
+        assertSamePaths(full, incremental);
+    }
+
+    @Test
+    void testChangedRatesMatchFullBuild() {
+        RateMatrix.Row previous = matrix.row(1L);
+        RateMatrix.Row row = new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.2"), "JPY", new BigDecimal("150")));
+        RateMatrix next = matrix.replace(row);
+
+        for (ConversionGraph.Mode mode : ConversionGraph.Mode.values()) {
+            for (int maxHops = 1; maxHops <= 4; maxHops++) {
+                ConversionGraph incremental = ConversionGraph.build(matrix, mode, maxHops).withChangedRates(next, previous, row);
+                assertSamePaths(ConversionGraph.build(next, mode, maxHops), incremental);
+            }
+        }
+    }
+
+    @Test
+    void testChangedRatesLeaveUnreachableRowsAlone() {
+        RateMatrix islands = RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5"))),
+                new RateMatrix.Row(2L, "EUR", "Euro", Map.of("GBP", new BigDecimal("0.85")))));
+        ConversionGraph graph = ConversionGraph.build(islands, ConversionGraph.Mode.FEWEST_HOPS, 4);
+        RateMatrix.Row previous = islands.row(1L);
+        RateMatrix.Row row = new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.5")));
+
+        ConversionGraph incremental = graph.withChangedRates(islands.replace(row), previous, row);
+
+        assertEquals(0, new BigDecimal("5.5").compareTo(incremental.rate("USD", "BRL")));
+        assertEquals(graph.rate("EUR", "GBP"), incremental.rate("EUR", "GBP"));
+        assertEquals(graph.rate("GBP", "EUR"), incremental.rate("GBP", "EUR"));
+    }
+
+    private static void assertSamePaths(ConversionGraph full, ConversionGraph incremental) {
+        for (String from : List.of("USD", "BRL", "EUR", "JPY", "GBP", "CHF")) {
+            for (String to : List.of("USD", "BRL", "EUR", "JPY", "GBP", "CHF")) {
+                assertEquals(full.hops(from, to), incremental.hops(from, to), from + "->" + to);
+                BigDecimal expected = full.rate(from, to);
+                BigDecimal actual = incremental.rate(from, to);
+                if (expected == null) {
+                    assertNull(actual, from + "->" + to);
+                } else {
+                    assertEquals(0, expected.compareTo(actual), from + "->" + to);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.ada.currencyapi.domain.CurrencyRequest;
+import br.com.ada.currencyapi.exception.CurrencyException;
+
+public class CurrencyCsvReaderTest {
+
+    @Test
+    void testReadsQuotedFieldsAndExchanges() {
+        List<CurrencyRequest> requests = CurrencyCsvReader.read(new StringReader("""
+                name,description,exchanges
+                USD,"The ""US"" Dollar, paper",BRL:5.10;EUR:0.92
+
+                JPY
+                """));
+
+        assertEquals(2, requests.size());
+        assertEquals("USD", requests.get(0).getName());
+        assertEquals("The \"US\" Dollar, paper", requests.get(0).getDescription());
+        assertEquals(new BigDecimal("5.10"), requests.get(0).getExchanges().get("BRL"));
+        assertEquals(new BigDecimal("0.92"), requests.get(0).getExchanges().get("EUR"));
+        assertEquals("JPY", requests.get(1).getName());
+        assertNull(requests.get(1).getDescription());
+        assertTrue(requests.get(1).getExchanges().isEmpty());
+    }
+
+    @Test
+    void testInvalidExchangeReportsLine() {
+        CurrencyException exception = assertThrows(CurrencyException.class, () -> CurrencyCsvReader.read(new StringReader("""
+                USD,Dollar,BRL:5.10
+                EUR,Euro,BRL=6
+                """)));
+
+        assertEquals("Invalid exchange 'BRL=6' on CSV line 2", exception.getMessage());
+    }
+}
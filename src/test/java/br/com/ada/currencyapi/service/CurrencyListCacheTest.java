@@ -0,0 +1,78 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ada.currencyapi.domain.CurrencyResponse;
+import br.com.ada.currencyapi.repository.CurrencyChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class CurrencyListCacheTest {
+
+    @Mock
+    private CurrencyService currencyService;
+
+    private final CurrencyListVersion listVersion = new CurrencyListVersion();
+
+    private CurrencyListCache listCache;
+
+    @BeforeEach
+    void setup() {
+        listCache = new CurrencyListCache(currencyService, listVersion, new ObjectMapper());
+    }
+
+    @Test
+    void testListIsRenderedOncePerVersion() throws IOException {
+        when(currencyService.get()).thenReturn(
+                List.of(CurrencyResponse.builder().label("1 - USD").build()),
+                List.of(CurrencyResponse.builder().label("1 - USD").build(), CurrencyResponse.builder().label("2 - EUR").build()));
+
+        CurrencyListCache.Rendered first = listCache.current();
+        assertSame(first, listCache.current());
+        assertEquals("[{\"label\":\"1 - USD\"}]", new String(first.json(), StandardCharsets.UTF_8));
+        assertEquals("[{\"label\":\"1 - USD\"}]", gunzip(first.gzip()));
+        assertEquals("\"" + DigestUtils.md5DigestAsHex(first.json()) + "\"", first.eTag());
+
+        listVersion.onCurrencyChanged(new CurrencyChangedEvent(2L, false));
+        CurrencyListCache.Rendered second = listCache.current();
+
+        assertNotSame(first, second);
+        assertEquals("[{\"label\":\"1 - USD\"},{\"label\":\"2 - EUR\"}]", new String(second.json(), StandardCharsets.UTF_8));
+        verify(currencyService, times(2)).get();
+    }
+
+    @Test
+    void testSameListGetsTheSameTagOnEveryInstance() {
+        when(currencyService.get()).thenReturn(List.of(CurrencyResponse.builder().label("1 - USD").build()));
+        CurrencyListVersion otherVersion = new CurrencyListVersion();
+        otherVersion.onCurrencyChanged(new CurrencyChangedEvent(1L, false));
+        CurrencyListCache other = new CurrencyListCache(currencyService, otherVersion, new ObjectMapper());
+
+        assertEquals(listCache.current().eTag(), other.current().eTag());
+    }
+
+    private String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
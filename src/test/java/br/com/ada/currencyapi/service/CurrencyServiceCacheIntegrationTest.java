@@ -0,0 +1,116 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import br.com.ada.currencyapi.domain.ConvertCurrencyRequest;
+import br.com.ada.currencyapi.domain.CurrencyRequest;
+import br.com.ada.currencyapi.domain.PatchExchangesRequest;
+import br.com.ada.currencyapi.repository.CurrencyRepository;
+import br.com.ada.currencyapi.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "currency.rates.source=database",
+        "currency.prefetch.enabled=false"
+})
+public class CurrencyServiceCacheIntegrationTest {
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void testRepeatedConversionsCostNoStatements() {
+        currencyService.create(usd("5.00"));
+        assertEquals(0, new BigDecimal("10.00").compareTo(convert()));
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(0, new BigDecimal("10.00").compareTo(convert()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(convert()));
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(meterRegistry.get("hibernate.query.cache.hit.ratio").gauge().value() > 0);
+    }
+
+    @Test
+    void testCachedRateIsInvalidatedByPatch() {
+        Long id = currencyService.create(usd("5.00"));
+        assertEquals(0, new BigDecimal("10.00").compareTo(convert()));
+
+        currencyService.patchExchanges(id, PatchExchangesRequest.builder()
+                .upsert(new HashMap<>(Map.of("BRL", new BigDecimal("6.00"))))
+                .build());
+
+        assertEquals(0, new BigDecimal("12.00").compareTo(convert()));
+        assertEquals(0, new BigDecimal("6.00").compareTo(currencyRepository.findWithExchangesById(id).orElseThrow()
+                .getExchanges().get("BRL")));
+    }
+
+    @Test
+    void testFindByNameIsCachedUntilDelete() {
+        Long id = currencyService.create(usd("5.00"));
+        currencyRepository.findByName("USD");
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(id, currencyRepository.findByName("USD").getId());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        currencyService.delete(id);
+        assertNull(currencyRepository.findByName("USD"));
+    }
+
+    private CurrencyRequest usd(String brl) {
+        return CurrencyRequest.builder()
+                .name("USD")
+                .description("Dollar")
+                .exchanges(new HashMap<>(Map.of("BRL", new BigDecimal(brl))))
+                .build();
+    }
+
+    private BigDecimal convert() {
+        return currencyService.convert(ConvertCurrencyRequest.builder()
+                .from("USD")
+                .to("BRL")
+                .amount(new BigDecimal("2"))
+                .build()).getAmount();
+    }
+}
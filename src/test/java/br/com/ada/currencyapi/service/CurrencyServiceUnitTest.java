@@ -7,31 +7,45 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-import br.com.ada.currencyapi.client.AwesomeClient;
-import br.com.ada.currencyapi.client.Conversion;
-import br.com.ada.currencyapi.client.Quote;
+import br.com.ada.currencyapi.client.QuoteRate;
 import br.com.ada.currencyapi.domain.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
+import br.com.ada.currencyapi.config.BatchProperties;
+import br.com.ada.currencyapi.config.ListingProperties;
+import br.com.ada.currencyapi.config.RatesProperties;
 import br.com.ada.currencyapi.exception.CoinNotFoundException;
 import br.com.ada.currencyapi.exception.CurrencyException;
 import br.com.ada.currencyapi.repository.CurrencyRepository;
-import org.springframework.http.ResponseEntity;
+import br.com.ada.currencyapi.repository.ExchangeRateRepository;
+import br.com.ada.currencyapi.repository.ExchangesChangedEvent;
 
 @ExtendWith(MockitoExtension.class)
 public class CurrencyServiceUnitTest {
@@ -43,7 +57,31 @@ public class CurrencyServiceUnitTest {
     private CurrencyRepository currencyRepository;
 
     @Mock
-    private AwesomeClient awesomeClient;
+    private RateMatrixHolder rateMatrixHolder;
+
+    @Mock
+    private QuoteService quoteService;
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Spy
+    private RatesProperties ratesProperties = new RatesProperties();
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Spy
+    private ListingProperties listingProperties = new ListingProperties();
+
+    @Mock
+    private QuoteHistory quoteHistory;
+
+    @Mock
+    private RateStream rateStream;
+
+    @Spy
+    private BatchProperties batchProperties = new BatchProperties();
 
     @Test
     void testGet() {
@@ -68,6 +106,31 @@ public class CurrencyServiceUnitTest {
         assertEquals("2 - USD", responses.get(1).getLabel());
     }
 
+    @Test
+    void testGetPageSeeksAfterTheGivenId() {
+        listingProperties.setPageSize(2);
+        Mockito.when(currencyRepository.findByIdGreaterThanOrderById(5L, Limit.of(3))).thenReturn(List.of(
+                label(6L, "EUR"), label(8L, "USD"), label(9L, "JPY")));
+
+        CurrencyPageResponse page = currencyService.getPage(5L, null);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("6 - EUR", page.getItems().get(0).getLabel());
+        assertEquals("8 - USD", page.getItems().get(1).getLabel());
+        assertEquals(8L, page.getNext());
+    }
+
+    @Test
+    void testGetLastPageHasNoNext() {
+        listingProperties.setMaxPageSize(10);
+        Mockito.when(currencyRepository.findByIdGreaterThanOrderById(Long.MIN_VALUE, Limit.of(11))).thenReturn(List.of(label(1L, "BRL")));
+
+        CurrencyPageResponse page = currencyService.getPage(null, 500);
+
+        assertEquals(1, page.getItems().size());
+        Assertions.assertNull(page.getNext());
+    }
+
     @Test
     void testCreate() {
         Mockito.when(currencyRepository.findByName(anyString())).thenReturn(null);
@@ -77,6 +140,22 @@ public class CurrencyServiceUnitTest {
         Assertions.assertNotNull(id);
     }
 
+    @Test
+    void testCreateWritesExchangeRates() {
+        Mockito.when(currencyRepository.findByName("USD")).thenReturn(null);
+        Mockito.when(currencyRepository.save(any(Currency.class))).thenReturn(Currency.builder().id(3L).name("USD").build());
+
+        currencyService.create(CurrencyRequest.builder()
+                .name("USD")
+                .exchanges(new HashMap<>(Map.of("BRL", new BigDecimal("5"))))
+                .build());
+
+        verify(exchangeRateRepository).saveAll(Mockito.<List<ExchangeRate>>argThat(rates -> rates.size() == 1
+                && "USD".equals(rates.get(0).getFromCode())
+                && "BRL".equals(rates.get(0).getToCode())
+                && Long.valueOf(3L).equals(rates.get(0).getCurrencyId())));
+    }
+
     @Test
     void testCreateThrowsCurrencyException() {
         Mockito.when(currencyRepository.findByName(any())).thenReturn(Currency.builder().build());
@@ -91,19 +170,79 @@ public class CurrencyServiceUnitTest {
         doNothing().when(currencyRepository).deleteById(anyLong());
         currencyService.delete(1L);
         verify(currencyRepository, times(1)).deleteById(anyLong());
+        verify(exchangeRateRepository, times(1)).deleteByCurrencyId(1L);
         verifyNoMoreInteractions(currencyRepository);
     }
 
+    @Test
+    void testPatchExchangesWritesOnlyChangedRows() {
+        Mockito.when(currencyRepository.findLockedById(1L)).thenReturn(Optional.of(Currency.builder().id(1L).name("USD").build()));
+        Mockito.when(currencyRepository.updateExchange(1L, "BRL", new BigDecimal("5.10"))).thenReturn(1);
+        Mockito.when(currencyRepository.updateExchange(1L, "JPY", new BigDecimal("150"))).thenReturn(0);
+        Mockito.when(exchangeRateRepository.updateRate("USD", "BRL", new BigDecimal("5.10"))).thenReturn(1);
+        Mockito.when(exchangeRateRepository.updateRate("USD", "JPY", new BigDecimal("150"))).thenReturn(0);
+
+        currencyService.patchExchanges(1L, PatchExchangesRequest.builder()
+                .upsert(new HashMap<>(Map.of("BRL", new BigDecimal("5.10"), "JPY", new BigDecimal("150"))))
+                .remove(new HashSet<>(Set.of("EUR")))
+                .build());
+
+        verify(currencyRepository, times(1)).insertExchange(1L, "JPY", new BigDecimal("150"));
+        verify(currencyRepository, Mockito.never()).insertExchange(1L, "BRL", new BigDecimal("5.10"));
+        verify(currencyRepository, times(1)).deleteExchanges(1L, Set.of("EUR"));
+        verify(exchangeRateRepository, times(1)).save(any(ExchangeRate.class));
+        verify(exchangeRateRepository, times(1)).deleteRates("USD", Set.of("EUR"));
+        verify(publisher, times(1)).publishEvent(new ExchangesChangedEvent(1L,
+                Map.of("BRL", new BigDecimal("5.10"), "JPY", new BigDecimal("150")), Set.of("EUR")));
+    }
+
+    @Test
+    void testPatchExchangesOfUnknownCurrencyThrowsCoinNotFoundException() {
+        Mockito.when(currencyRepository.findLockedById(9L)).thenReturn(Optional.empty());
+
+        CoinNotFoundException exception = Assertions.assertThrows(CoinNotFoundException.class, () -> currencyService.patchExchanges(9L,
+                PatchExchangesRequest.builder().remove(new HashSet<>(Set.of("EUR"))).build()));
+
+        assertEquals("Coin not found: 9", exception.getMessage());
+    }
+
+    @Test
+    void testConvertLooksUpRateInDatabase() {
+        ratesProperties.setSource(RatesProperties.Source.DATABASE);
+        Mockito.when(exchangeRateRepository.findRate("USD", "EUR")).thenReturn(Optional.of(lookup(1L, new BigDecimal("2"))));
+
+        ConvertCurrencyResponse response = currencyService.convert(ConvertCurrencyRequest.builder()
+                .from("USD")
+                .to("EUR")
+                .amount(BigDecimal.TEN)
+                .build());
+
+        assertEquals(new BigDecimal("20"), response.getAmount());
+        verifyNoMoreInteractions(rateMatrixHolder);
+    }
+
+    @Test
+    void testConvertBatchFromDatabaseReportsErrorsPerItem() {
+        ratesProperties.setSource(RatesProperties.Source.DATABASE);
+        Mockito.when(exchangeRateRepository.findRate("EUR", "BRL")).thenReturn(Optional.empty());
+        Mockito.when(exchangeRateRepository.findRate("USD", "EUR")).thenReturn(Optional.of(lookup(1L, null)));
+
+        List<BatchConvertCurrencyResponse> responses = currencyService.convertBatch(List.of(
+                ConvertCurrencyRequest.builder().from("EUR").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("USD").to("EUR").amount(BigDecimal.TEN).build()));
+
+        assertEquals("Coin not found: EUR", responses.get(0).getError());
+        assertEquals("Exchange EUR not found for USD", responses.get(1).getError());
+    }
+
     @Test
     void testConvert() {
-        Mockito.when(currencyRepository.findByName(any())).thenReturn(
-                Currency.builder()
-                        .exchanges(Map.of("EUR", new BigDecimal("2")))
-                        .build()
-        );
+        Mockito.when(rateMatrixHolder.current()).thenReturn(RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("EUR", new BigDecimal("2"))))));
 
         ConvertCurrencyRequest request = ConvertCurrencyRequest
                 .builder()
+                .from("USD")
                 .to("EUR")
                 .amount(BigDecimal.TEN)
                 .build();
@@ -112,9 +251,26 @@ public class CurrencyServiceUnitTest {
         assertEquals(new BigDecimal("20"), response.getAmount());
     }
 
+    @Test
+    void testConvertUsesCrossRateWhenNoDirectExchange() {
+        RateMatrix rates = RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5"))),
+                new RateMatrix.Row(2L, "EUR", "Euro", Map.of("USD", new BigDecimal("2")))));
+        Mockito.when(rateMatrixHolder.current()).thenReturn(rates.withPaths(
+                ConversionGraph.build(rates, ConversionGraph.Mode.FEWEST_HOPS, 4)));
+
+        ConvertCurrencyResponse response = currencyService.convert(ConvertCurrencyRequest.builder()
+                .from("EUR")
+                .to("BRL")
+                .amount(BigDecimal.TEN)
+                .build());
+
+        assertEquals(0, new BigDecimal("100").compareTo(response.getAmount()));
+    }
+
     @Test
     void testConvertThrowsCoinNotFoundException() {
-        Mockito.when(currencyRepository.findByName(any())).thenReturn(null);
+        Mockito.when(rateMatrixHolder.current()).thenReturn(RateMatrix.empty());
         ConvertCurrencyRequest request = ConvertCurrencyRequest
                 .builder()
                 .from("USD")
@@ -129,9 +285,8 @@ public class CurrencyServiceUnitTest {
 
     @Test
     void testConvertThrowsCoinNotFoundExceptionForExchange() {
-        Mockito.when(currencyRepository.findByName(any())).thenReturn(Currency.builder()
-                .exchanges(Map.of("BRL", new BigDecimal("2")))
-                .build());
+        Mockito.when(rateMatrixHolder.current()).thenReturn(RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("2"))))));
         ConvertCurrencyRequest request = ConvertCurrencyRequest
                 .builder()
                 .from("USD")
@@ -145,26 +300,202 @@ public class CurrencyServiceUnitTest {
     }
 
     @Test
-    void testConvertUsingExternalApi() {
-        Conversion conversion = new Conversion();
+    void testConvertAtUsesTheQuoteHistory() {
+        Instant at = Instant.parse("2024-05-14T15:00:00Z");
+        when(quoteHistory.rateAt("USD-BRL", at)).thenReturn(Optional.of(new BigDecimal("5.10")));
+        ConvertCurrencyRequest request = ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).at(at).build();
+
+        assertEquals(new BigDecimal("51.00"), currencyService.convert(request).getAmount());
+        verifyNoMoreInteractions(rateMatrixHolder, exchangeRateRepository);
+    }
+
+    @Test
+    void testConvertAtWithoutHistoryThrowsCoinNotFoundException() {
+        Instant at = Instant.parse("2024-05-14T15:00:00Z");
+        when(quoteHistory.rateAt("USD-BRL", at)).thenReturn(Optional.empty());
+        ConvertCurrencyRequest request = ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).at(at).build();
+
+        CoinNotFoundException exception = Assertions.assertThrows(CoinNotFoundException.class, () -> currencyService.convert(request));
+
+        assertEquals("Quote not found: USD-BRL at 2024-05-14T15:00:00Z", exception.getMessage());
+    }
+
+    @Test
+    void testSubscribeRatesStartsLocalPairsWithTheSnapshotRate() {
+        when(rateMatrixHolder.current()).thenReturn(RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.10"))))));
+
+        currencyService.subscribeRates(RateStream.Source.LOCAL, List.of("USD-BRL"));
+        ArgumentCaptor<Consumer<String>> onSubscribed = ArgumentCaptor.captor();
+        verify(rateStream).subscribe(Mockito.eq(RateStream.Source.LOCAL), Mockito.eq(List.of("USD-BRL")), onSubscribed.capture());
+        onSubscribed.getValue().accept("USD-BRL");
+
+        verify(rateStream).publish(Mockito.eq(RateStream.Source.LOCAL), Mockito.eq("USD-BRL"), Mockito.eq(new BigDecimal("5.10")), anyLong());
+    }
+
+    @Test
+    void testSubscribeRatesStartsQuotePairsWithTheCurrentQuote() {
+        QuoteRate usdbrl = new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L);
+        when(quoteService.getQuoteAsync("USD-BRL")).thenReturn(CompletableFuture.completedFuture(usdbrl));
+
+        currencyService.subscribeRates(RateStream.Source.QUOTE, List.of("USD-BRL"));
+        ArgumentCaptor<Consumer<String>> onSubscribed = ArgumentCaptor.captor();
+        verify(rateStream).subscribe(Mockito.eq(RateStream.Source.QUOTE), Mockito.eq(List.of("USD-BRL")), onSubscribed.capture());
+        onSubscribed.getValue().accept("USD-BRL");
 
-        Map<String, Quote> quotes = new HashMap<>();
-        Quote usdbrl = new Quote();
-        usdbrl.setHigh("5.50");
-        quotes.put("USDBRL", usdbrl);
+        verify(rateStream).onQuote("USD-BRL", usdbrl);
+    }
 
-        conversion.setQuotes(quotes);
+    @Test
+    void testConvertUsingExternalApiQuotesLowerCaseCodesAsUpperCasePair() {
+        QuoteRate usdbrl = new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L);
+        Mockito.when(quoteService.getQuoteAsync("USD-BRL")).thenReturn(CompletableFuture.completedFuture(usdbrl));
 
-        var convertCurrencyRequest = ConvertCurrencyRequest.builder()
+        var quote = currencyService.convertUsingExternalApiAsync(ConvertCurrencyRequest.builder()
+                .from("usd")
+                .to("brl")
+                .amount(BigDecimal.TEN)
+                .build());
+
+        assertEquals(new BigDecimal("55.00"), quote.join().getAmount());
+    }
+
+    @Test
+    void testConvertUsingExternalApiAsyncCompletesWithQuote() {
+        CompletableFuture<QuoteRate> pending = new CompletableFuture<>();
+        Mockito.when(quoteService.getQuoteAsync("USD-BRL")).thenReturn(pending);
+
+        var response = currencyService.convertUsingExternalApiAsync(ConvertCurrencyRequest.builder()
                 .from("USD")
                 .to("BRL")
                 .amount(BigDecimal.TEN)
-                .build();
+                .build());
 
-        Mockito.when(awesomeClient.get(any())).thenReturn(ResponseEntity.ok(conversion));
+        Assertions.assertFalse(response.isDone());
+        pending.complete(new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L));
+        assertEquals(new BigDecimal("55.00"), response.join().getAmount());
+        Assertions.assertFalse(response.join().isStale());
+    }
+
+    @Test
+    void testConvertUsingExternalApiFlagsLastKnownQuoteAsStale() {
+        QuoteRate lastKnown = new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L).asStale();
+        Mockito.when(quoteService.getQuoteAsync("USD-BRL")).thenReturn(CompletableFuture.completedFuture(lastKnown));
+
+        var response = currencyService.convertUsingExternalApiAsync(ConvertCurrencyRequest.builder()
+                .from("USD")
+                .to("BRL")
+                .amount(BigDecimal.TEN)
+                .build()).join();
+
+        assertEquals(new BigDecimal("55.00"), response.getAmount());
+        Assertions.assertTrue(response.isStale());
+    }
+
+    @Test
+    void testConvertBatchReportsErrorsPerItem() {
+        Mockito.when(rateMatrixHolder.current()).thenReturn(RateMatrix.of(1L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5"))))));
+
+        List<BatchConvertCurrencyResponse> responses = currencyService.convertBatch(List.of(
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("EUR").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("USD").to("EUR").amount(BigDecimal.TEN).build()));
+
+        assertEquals(3, responses.size());
+        assertEquals(new BigDecimal("50"), responses.get(0).getAmount());
+        assertEquals("Coin not found: EUR", responses.get(1).getError());
+        assertEquals("Exchange EUR not found for USD", responses.get(2).getError());
+        verify(rateMatrixHolder, times(1)).current();
+    }
+
+    @Test
+    void testOversizedBatchIsRejected() {
+        batchProperties.setMaxSize(2);
+        List<ConvertCurrencyRequest> requests = List.of(
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("EUR").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("GBP").to("BRL").amount(BigDecimal.TEN).build());
+
+        CurrencyException local = Assertions.assertThrows(CurrencyException.class, () -> currencyService.convertBatch(requests));
+        CurrencyException external = Assertions.assertThrows(CurrencyException.class, () -> currencyService.convertBatchUsingExternalApiAsync(requests));
+
+        assertEquals("Convert at most 2 pairs per batch", local.getMessage());
+        assertEquals("Convert at most 2 pairs per batch", external.getMessage());
+        verifyNoInteractions(rateMatrixHolder, quoteService);
+    }
 
-        var quote = currencyService.convertUsingExternalApi(convertCurrencyRequest);
+    @Test
+    void testBatchWithoutCurrencyCodesIsRejected() {
+        List<ConvertCurrencyRequest> requests = List.of(
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().to("BRL").amount(BigDecimal.TEN).build());
+
+        CurrencyException exception = Assertions.assertThrows(CurrencyException.class, () -> currencyService.convertBatchUsingExternalApiAsync(requests));
+
+        assertEquals("Coins to convert from and to are required, entry 2", exception.getMessage());
+        verifyNoInteractions(quoteService);
+    }
+
+    @Test
+    void testConvertBatchUsingExternalApiResolvesEachPairOnce() {
+        QuoteRate usdbrl = new QuoteRate(new BigDecimal("5.50"), new BigDecimal("5.45"), 1715698799L);
+
+        Mockito.when(quoteService.getQuotesAsync(List.of("USD-BRL", "XXX-BRL", "USD-BRL"))).thenReturn(Map.of(
+                "USD-BRL", CompletableFuture.completedFuture(usdbrl),
+                "XXX-BRL", CompletableFuture.failedFuture(new CoinNotFoundException("Quote not found: XXX-BRL"))));
+
+        List<BatchConvertCurrencyResponse> responses = currencyService.convertBatchUsingExternalApiAsync(List.of(
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("XXX").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.ONE).build())).join();
+
+        assertEquals(new BigDecimal("55.00"), responses.get(0).getAmount());
+        assertEquals("Quote not found: XXX-BRL", responses.get(1).getError());
+        assertEquals(new BigDecimal("5.50"), responses.get(2).getAmount());
+    }
+
+    @Test
+    void testBatchQuoteFreshnessIsTheShortestAndZeroOnErrors() {
+        Mockito.when(quoteService.freshness("USD-BRL")).thenReturn(Duration.ofSeconds(20));
+        Mockito.when(quoteService.freshness("EUR-BRL")).thenReturn(Duration.ofSeconds(5));
+        List<ConvertCurrencyRequest> requests = List.of(
+                ConvertCurrencyRequest.builder().from("USD").to("BRL").amount(BigDecimal.TEN).build(),
+                ConvertCurrencyRequest.builder().from("EUR").to("BRL").amount(BigDecimal.TEN).build());
+
+        assertEquals(Duration.ofSeconds(5), currencyService.quoteFreshness(requests, List.of(
+                BatchConvertCurrencyResponse.builder().amount(BigDecimal.ONE).stale(false).build(),
+                BatchConvertCurrencyResponse.builder().amount(BigDecimal.ONE).stale(false).build())));
+        assertEquals(Duration.ZERO, currencyService.quoteFreshness(requests, List.of(
+                BatchConvertCurrencyResponse.builder().amount(BigDecimal.ONE).stale(false).build(),
+                BatchConvertCurrencyResponse.builder().error("Quote not found: EUR-BRL").build())));
+    }
+
+    private CurrencyRepository.Label label(Long id, String name) {
+        return new CurrencyRepository.Label() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
 
-        assertEquals(new BigDecimal("55.00"), quote.getAmount());
+    private ExchangeRateRepository.RateLookup lookup(Long currencyId, BigDecimal rate) {
+        return new ExchangeRateRepository.RateLookup() {
+            @Override
+            public Long getCurrencyId() {
+                return currencyId;
+            }
+
+            @Override
+            public BigDecimal getRate() {
+                return rate;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.config.HistoryProperties;
+
+public class QuoteHistoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private HistoryProperties properties;
+
+    private QuoteHistory history;
+
+    @BeforeEach
+    void setup() {
+        properties = new HistoryProperties();
+        properties.setDirectory(directory);
+        properties.setChunkSize(4);
+        history = new QuoteHistory(properties, Runnable::run);
+    }
+
+    @AfterEach
+    void close() throws InterruptedException {
+        history.close();
+    }
+
+    @Test
+    void testRateAtFindsTheLastTickAtOrBeforeTheInstant() {
+        for (int i = 0; i < 10; i++) {
+            history.record("USD-BRL", quote("5.%d0".formatted(i), 1000 + i * 10));
+        }
+
+        assertEquals(Optional.empty(), history.rateAt("USD-BRL", at(999)));
+        assertEquals(Optional.of(new BigDecimal("5.00")), history.rateAt("USD-BRL", at(1000)));
+        assertEquals(Optional.of(new BigDecimal("5.30")), history.rateAt("USD-BRL", at(1035)));
+        assertEquals(Optional.of(new BigDecimal("5.40")), history.rateAt("USD-BRL", at(1040)));
+        assertEquals(Optional.of(new BigDecimal("5.70")), history.rateAt("USD-BRL", at(1079)));
+        assertEquals(Optional.of(new BigDecimal("5.90")), history.rateAt("USD-BRL", at(5000)));
+        assertEquals(Optional.empty(), history.rateAt("EUR-BRL", at(5000)));
+        assertEquals(10, history.recordedCount());
+    }
+
+    @Test
+    void testTicksThatAreNotNewerAreIgnored() {
+        history.record("USD-BRL", quote("5.10", 1000));
+        history.record("USD-BRL", quote("5.20", 1000));
+        history.record("USD-BRL", quote("5.30", 990));
+
+        assertEquals(Optional.of(new BigDecimal("5.10")), history.rateAt("USD-BRL", at(2000)));
+        assertEquals(1, history.recordedCount());
+    }
+
+    @Test
+    void testHistorySurvivesARestart() throws InterruptedException {
+        for (int i = 0; i < 6; i++) {
+            history.record("USD-BRL", quote("5.%d0".formatted(i), 1000 + i));
+        }
+        history.close();
+
+        history = new QuoteHistory(properties, Runnable::run);
+        history.record("USD-BRL", quote("6.00", 1003));
+        history.record("USD-BRL", quote("6.10", 1010));
+
+        assertEquals(Optional.of(new BigDecimal("5.20")), history.rateAt("USD-BRL", at(1002)));
+        assertEquals(Optional.of(new BigDecimal("5.50")), history.rateAt("USD-BRL", at(1009)));
+        assertEquals(Optional.of(new BigDecimal("6.10")), history.rateAt("USD-BRL", at(1010)));
+    }
+
+    @Test
+    void testTornChunkIsDroppedOnRestart() throws InterruptedException, IOException {
+        for (int i = 0; i < 4; i++) {
+            history.record("USD-BRL", quote("5.%d0".formatted(i), 1000 + i));
+        }
+        history.close();
+        Path file = directory.resolve("USD-BRL.ticks");
+        long sealed = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 4, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        history = new QuoteHistory(properties, Runnable::run);
+        history.record("USD-BRL", quote("6.00", 2000));
+
+        assertEquals(Optional.of(new BigDecimal("5.30")), history.rateAt("USD-BRL", at(1999)));
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertEquals(sealed, channel.size());
+        }
+    }
+
+    @Test
+    void testOpenFilesAreBoundedAcrossPairs() throws InterruptedException {
+        history.close();
+        properties.setMaxOpenFiles(2);
+        history = new QuoteHistory(properties, Runnable::run);
+        List<String> pairs = List.of("USD-BRL", "EUR-BRL", "GBP-BRL", "JPY-BRL", "ARS-BRL");
+
+        for (int i = 0; i < 6; i++) {
+            for (String pair : pairs) {
+                history.record(pair, quote("5.%d0".formatted(i), 1000 + i));
+            }
+        }
+
+        assertEquals(2, history.openFileCount());
+        for (String pair : pairs) {
+            assertEquals(Optional.of(new BigDecimal("5.20")), history.rateAt(pair, at(1002)));
+            assertEquals(Optional.of(new BigDecimal("5.50")), history.rateAt(pair, at(1005)));
+        }
+        assertEquals(2, history.openFileCount());
+    }
+
+    @Test
+    void testPairsThatAreNotCurrencyCodesAreNotRecorded() {
+        history.record("../USD-BRL", quote("5.10", 1000));
+
+        assertEquals(Optional.empty(), history.rateAt("../USD-BRL", at(1000)));
+        assertEquals(0, history.recordedCount());
+    }
+
+    @Test
+    void testWideRatesAreRounded() {
+        history.record("BTC-VEF", quote("12345678901234567890.123", 1000));
+
+        assertEquals(Optional.of(new BigDecimal("1.234567890123457E+19")), history.rateAt("BTC-VEF", at(1000)));
+    }
+
+    private QuoteRate quote(String high, long timestamp) {
+        return new QuoteRate(new BigDecimal(high), null, timestamp);
+    }
+
+    private Instant at(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond);
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import br.com.ada.currencyapi.config.PrefetchProperties;
+
+@ExtendWith(MockitoExtension.class)
+public class QuotePrefetcherTest {
+
+    @Mock
+    private QuoteService quoteService;
+
+    @Mock
+    private ThreadPoolTaskScheduler quoteScheduler;
+
+    @Mock
+    private RateStream rateStream;
+
+    private PrefetchProperties properties;
+
+    private QuotePrefetcher quotePrefetcher;
+
+    @BeforeEach
+    void setup() {
+        properties = new PrefetchProperties();
+        properties.setHotPairs(3);
+        properties.setInterval(Duration.ofSeconds(10));
+        quotePrefetcher = new QuotePrefetcher(quoteService, properties, quoteScheduler, rateStream);
+    }
+
+    @Test
+    void testHottestPairsAreKeptAndColdPairsDropped() {
+        when(quoteService.drainDemand()).thenReturn(
+                Map.of("USD-BRL", 10L, "EUR-BRL", 4L, "GBP-BRL", 1L),
+                Map.of("GBP-BRL", 6L),
+                Map.of(),
+                Map.of());
+
+        assertEquals(List.of("USD-BRL", "EUR-BRL", "GBP-BRL"), quotePrefetcher.hotPairs());
+        assertEquals(List.of("GBP-BRL", "USD-BRL", "EUR-BRL"), quotePrefetcher.hotPairs());
+        assertEquals(List.of("GBP-BRL", "USD-BRL", "EUR-BRL"), quotePrefetcher.hotPairs());
+        // EUR-BRL decayed 4 -> 2 -> 1 -> 0.5 and is no longer tracked
+        assertEquals(List.of("GBP-BRL", "USD-BRL"), quotePrefetcher.hotPairs());
+    }
+
+    @Test
+    void testWarmUpRunsBeforeSchedulingRefreshes() {
+        properties.setWarmUpPairs(List.of("USD-BRL", "EUR-BRL"));
+        when(quoteService.prefetch(List.of("USD-BRL", "EUR-BRL"), Duration.ofSeconds(20)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        quotePrefetcher.run(null);
+
+        verify(quoteService).prefetch(List.of("USD-BRL", "EUR-BRL"), Duration.ofSeconds(20));
+        verify(quoteScheduler).scheduleAtFixedRate(any(Runnable.class), any(Instant.class), eq(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void testStreamedPairsAreRefreshedWithoutDemand() {
+        when(quoteService.drainDemand()).thenReturn(Map.of("USD-BRL", 2L));
+        when(rateStream.pairs(RateStream.Source.QUOTE)).thenReturn(Set.of("EUR-BRL"));
+        when(quoteService.prefetch(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        quotePrefetcher.prefetch();
+
+        verify(quoteService).prefetch(Set.of("USD-BRL", "EUR-BRL"), Duration.ofSeconds(20));
+    }
+}
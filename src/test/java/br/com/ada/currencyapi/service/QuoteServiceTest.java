@@ -0,0 +1,192 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.ada.currencyapi.client.QuoteRate;
+import br.com.ada.currencyapi.client.SingleFlightQuoteClient;
+import br.com.ada.currencyapi.config.QuoteCacheProperties;
+import br.com.ada.currencyapi.exception.CoinNotFoundException;
+import br.com.ada.currencyapi.exception.QuoteProviderUnavailableException;
+
+@ExtendWith(MockitoExtension.class)
+public class QuoteServiceTest {
+
+    @Mock
+    private SingleFlightQuoteClient quoteClient;
+
+    @Mock
+    private QuoteHistory history;
+
+    @Mock
+    private RateStream rateStream;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private QuoteService quoteService;
+
+    @BeforeEach
+    void setup() {
+        QuoteCacheProperties properties = new QuoteCacheProperties();
+        properties.setTtl(Duration.ofSeconds(30));
+        properties.setMaxStale(Duration.ofMinutes(5));
+        quoteService = new QuoteService(quoteClient, properties, Runnable::run, nanos::get, history, rateStream);
+    }
+
+    @Test
+    void testFreshQuoteIsServedFromCache() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"));
+
+        assertEquals(new BigDecimal("5.50"), getQuote("USD-BRL").high());
+        assertEquals(new BigDecimal("5.50"), getQuote("USD-BRL").high());
+
+        verify(quoteClient, times(1)).getAsync("USD-BRL");
+        assertEquals(1, quoteService.missCount());
+        assertEquals(1, quoteService.hitCount());
+    }
+
+    @Test
+    void testFetchedQuotesAreRecordedAndStreamedButStaleOnesAreNot() {
+        QuoteRate fetched = quote("5.50");
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(CompletableFuture.completedFuture(fetched),
+                CompletableFuture.failedFuture(new QuoteProviderUnavailableException("Quote provider unavailable. Try again later.")));
+
+        getQuote("USD-BRL");
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        getQuote("USD-BRL");
+
+        verify(history, times(1)).record("USD-BRL", fetched);
+        verify(rateStream, times(1)).onQuote("USD-BRL", fetched);
+    }
+
+    @Test
+    void testStaleQuoteIsServedWhileRefreshing() {
+        CompletableFuture<QuoteRate> refreshed = new CompletableFuture<>();
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"), refreshed);
+
+        getQuote("USD-BRL");
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertEquals(new BigDecimal("5.50"), getQuote("USD-BRL").high());
+        refreshed.complete(quote("5.60"));
+        assertEquals(new BigDecimal("5.60"), getQuote("USD-BRL").high());
+        assertEquals(1, quoteService.refreshCount());
+    }
+
+    @Test
+    void testExpiredQuoteIsFetchedAgain() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"), completed("5.70"));
+
+        getQuote("USD-BRL");
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        assertEquals(new BigDecimal("5.70"), getQuote("USD-BRL").high());
+        assertEquals(2, quoteService.missCount());
+    }
+
+    @Test
+    void testLastKnownQuoteIsServedAsStaleWhileProviderIsUnavailable() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"),
+                CompletableFuture.failedFuture(new QuoteProviderUnavailableException("Quote provider unavailable. Try again later.")));
+
+        assertFalse(getQuote("USD-BRL").stale());
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        QuoteRate quote = getQuote("USD-BRL");
+        assertEquals(new BigDecimal("5.50"), quote.high());
+        assertTrue(quote.stale());
+    }
+
+    @Test
+    void testUnavailableProviderWithoutLastKnownQuoteFails() {
+        when(quoteClient.getAsync("EUR-BRL")).thenReturn(
+                CompletableFuture.failedFuture(new QuoteProviderUnavailableException("Quote provider unavailable. Try again later.")));
+
+        assertThrows(QuoteProviderUnavailableException.class, () -> getQuote("EUR-BRL"));
+    }
+
+    @Test
+    void testDemandIsCountedAndDrained() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"));
+
+        getQuote("USD-BRL");
+        getQuote("USD-BRL");
+
+        assertEquals(Map.of("USD-BRL", 2L), quoteService.drainDemand());
+        assertEquals(Map.of(), quoteService.drainDemand());
+    }
+
+    @Test
+    void testPrefetchLoadsOnlyMissingAndExpiringPairs() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"), completed("5.60"));
+        when(quoteClient.getAsync("EUR-BRL")).thenReturn(completed("6.00"));
+
+        getQuote("USD-BRL");
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+        quoteService.prefetch(List.of("USD-BRL", "EUR-BRL"), Duration.ofSeconds(20)).join();
+        verify(quoteClient, times(1)).getAsync("USD-BRL");
+        verify(quoteClient, times(1)).getAsync("EUR-BRL");
+
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        quoteService.prefetch(List.of("USD-BRL"), Duration.ofSeconds(20)).join();
+        assertEquals(new BigDecimal("5.60"), getQuote("USD-BRL").high());
+        assertEquals(1, quoteService.refreshCount());
+    }
+
+    @Test
+    void testFreshnessIsTheRemainingTtl() {
+        when(quoteClient.getAsync("USD-BRL")).thenReturn(completed("5.50"));
+
+        assertEquals(Duration.ZERO, quoteService.freshness("USD-BRL"));
+        getQuote("USD-BRL");
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(Duration.ofSeconds(20), quoteService.freshness("USD-BRL"));
+        nanos.addAndGet(Duration.ofSeconds(25).toNanos());
+        assertEquals(Duration.ZERO, quoteService.freshness("USD-BRL"));
+    }
+
+    @Test
+    void testMissingQuoteThrowsCoinNotFoundException() {
+        when(quoteClient.getAsync("USD-XXX")).thenReturn(CompletableFuture.completedFuture(null));
+
+        CoinNotFoundException exception = assertThrows(CoinNotFoundException.class, () -> getQuote("USD-XXX"));
+
+        assertEquals("Quote not found: USD-XXX", exception.getMessage());
+    }
+
+    // waits for the quote the way the async endpoints hand it to the caller, with the cause of a failure
+    private QuoteRate getQuote(String pair) {
+        try {
+            return quoteService.getQuoteAsync(pair).join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private CompletableFuture<QuoteRate> completed(String high) {
+        return CompletableFuture.completedFuture(quote(high));
+    }
+
+    private QuoteRate quote(String high) {
+        return new QuoteRate(new BigDecimal(high), null, 0L);
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class RateMatrixTest {
+
+    private final RateMatrix matrix = RateMatrix.of(1L, List.of(
+            new RateMatrix.Row(1L, "BRL", "Real", Map.of("USD", new BigDecimal("0.20"), "EUR", new BigDecimal("0.18"))),
+            new RateMatrix.Row(2L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.00"),
+                    "JPY", new BigDecimal("123456789012345678901234567890.5")))));
+
+    @Test
+    void testRateLookup() {
+        assertEquals(new BigDecimal("0.20"), matrix.rate("BRL", "USD"));
+        assertEquals(new BigDecimal("0.18"), matrix.rate("BRL", "EUR"));
+        assertEquals(new BigDecimal("5.00"), matrix.rate("USD", "BRL"));
+        assertEquals(new BigDecimal("123456789012345678901234567890.5"), matrix.rate("USD", "JPY"));
+        assertNull(matrix.rate("USD", "EUR"));
+        assertNull(matrix.rate("EUR", "BRL"));
+        assertNull(matrix.rate("XXX", "BRL"));
+    }
+
+    @Test
+    void testContainsOnlyRegisteredCurrencies() {
+        assertTrue(matrix.contains("BRL"));
+        assertTrue(matrix.contains("USD"));
+        assertFalse(matrix.contains("EUR"));
+        assertFalse(matrix.contains(null));
+        assertEquals(2, matrix.size());
+    }
+
+    @Test
+    void testRowOfRegisteredCurrency() {
+        RateMatrix.Row row = matrix.row(2L);
+        assertEquals("USD", row.name());
+        assertEquals("Dollar", row.description());
+        assertEquals(Map.of("BRL", new BigDecimal("5.00"), "JPY", new BigDecimal("123456789012345678901234567890.5")), row.exchanges());
+        assertNull(matrix.row(3L));
+    }
+
+    @Test
+    void testWithAndWithoutCopyOnWrite() {
+        RateMatrix added = matrix.with(new RateMatrix.Row(3L, "EUR", "Euro", Map.of("BRL", new BigDecimal("5.50"))));
+        RateMatrix removed = added.without(1L);
+
+        assertFalse(matrix.contains("EUR"));
+        assertEquals(new BigDecimal("5.50"), added.rate("EUR", "BRL"));
+        assertEquals(2L, added.version());
+        assertFalse(removed.contains("BRL"));
+        assertNull(removed.rate("BRL", "USD"));
+        assertEquals(new BigDecimal("5.00"), removed.rate("USD", "BRL"));
+    }
+
+    @Test
+    void testReplaceRewritesOnlyTheRow() {
+        RateMatrix replaced = matrix.replace(new RateMatrix.Row(1L, "BRL", "Brazilian real", Map.of(
+                "USD", new BigDecimal("0.19"), "EUR", new BigDecimal("0.17"), "JPY", new BigDecimal("30"))));
+
+        assertEquals(new BigDecimal("0.19"), replaced.rate("BRL", "USD"));
+        assertEquals(new BigDecimal("30"), replaced.rate("BRL", "JPY"));
+        assertEquals("Brazilian real", replaced.row(1L).description());
+        // the rows after it are shifted, including a rate too wide for the primitive columns
+        assertEquals(new BigDecimal("5.00"), replaced.rate("USD", "BRL"));
+        assertEquals(new BigDecimal("123456789012345678901234567890.5"), replaced.rate("USD", "JPY"));
+        assertEquals(2L, replaced.version());
+        assertEquals(new BigDecimal("0.20"), matrix.rate("BRL", "USD"));
+
+        RateMatrix shrunk = replaced.replace(new RateMatrix.Row(1L, "BRL", "Real", Map.of()));
+        assertNull(shrunk.rate("BRL", "USD"));
+        assertEquals(new BigDecimal("123456789012345678901234567890.5"), shrunk.rate("USD", "JPY"));
+
+        RateMatrix unknownCode = matrix.replace(new RateMatrix.Row(1L, "BRL", "Real", Map.of("GBP", new BigDecimal("0.15"))));
+        assertEquals(new BigDecimal("0.15"), unknownCode.rate("BRL", "GBP"));
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.ada.currencyapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import br.com.ada.currencyapi.config.StreamProperties;
+import br.com.ada.currencyapi.domain.RateUpdate;
+import br.com.ada.currencyapi.exception.CurrencyException;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+public class RateStreamTest {
+
+    private RateStream rateStream;
+
+    @BeforeEach
+    void setup() {
+        StreamProperties properties = new StreamProperties();
+        properties.setMaxPairs(2);
+        rateStream = new RateStream(properties);
+    }
+
+    @Test
+    void testOnlyMovedRatesArePublished() {
+        List<String> received = new ArrayList<>();
+        Disposable subscription = subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"), received);
+
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.10"), 1L);
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.100"), 2L);
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.20"), 3L);
+        rateStream.publish(RateStream.Source.QUOTE, "EUR-BRL", new BigDecimal("6.00"), 3L);
+        rateStream.publish(RateStream.Source.LOCAL, "USD-BRL", new BigDecimal("4.00"), 3L);
+
+        assertEquals(List.of("USD-BRL 5.10", "USD-BRL 5.20"), received);
+        subscription.dispose();
+    }
+
+    @Test
+    void testLowercasePairsSubscribeToTheUppercaseTopic() {
+        List<String> received = new ArrayList<>();
+        Disposable subscription = subscribe(RateStream.Source.QUOTE, List.of("usd-brl", "USD-brl"), received);
+
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.10"), 1L);
+
+        assertEquals(List.of("USD-BRL 5.10"), received);
+        subscription.dispose();
+    }
+
+    @Test
+    void testLateSubscriberStartsWithTheLatestUpdate() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        Disposable subscription = subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"), first);
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.10"), 1L);
+        rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.20"), 2L);
+
+        Disposable late = subscribe(RateStream.Source.QUOTE, List.of("USD-BRL", "EUR-BRL"), second);
+        rateStream.publish(RateStream.Source.QUOTE, "EUR-BRL", new BigDecimal("6.00"), 3L);
+
+        assertEquals(List.of("USD-BRL 5.20", "EUR-BRL 6.00"), second);
+        subscription.dispose();
+        late.dispose();
+    }
+
+    @Test
+    void testSlowSubscriberOnlyGetsTheLatestUpdate() {
+        List<String> received = new ArrayList<>();
+        BaseSubscriber<RateUpdate> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(RateUpdate update) {
+                received.add(format(update));
+            }
+        };
+        rateStream.subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"), pair -> { }).subscribe(slow);
+
+        for (int i = 0; i < 10; i++) {
+            rateStream.publish(RateStream.Source.QUOTE, "USD-BRL", new BigDecimal("5.1" + i), i);
+        }
+        slow.request(1);
+        slow.request(1);
+        slow.request(1);
+
+        // the first update, the one already buffered for the subscriber, then straight to the latest
+        assertEquals(List.of("USD-BRL 5.10", "USD-BRL 5.11", "USD-BRL 5.19"), received);
+        slow.dispose();
+    }
+
+    @Test
+    void testCallbackRunsOnceTheTopicExists() {
+        List<String> received = new ArrayList<>();
+        Disposable subscription = rateStream.subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"),
+                        pair -> rateStream.publish(RateStream.Source.QUOTE, pair, new BigDecimal("5.10"), 1L))
+                .subscribe(event -> received.add(format(event)));
+
+        assertEquals(List.of("USD-BRL 5.10"), received);
+        subscription.dispose();
+    }
+
+    @Test
+    void testTopicIsDroppedWithItsLastSubscriber() {
+        Disposable first = subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"), new ArrayList<>());
+        Disposable second = subscribe(RateStream.Source.QUOTE, List.of("USD-BRL"), new ArrayList<>());
+
+        first.dispose();
+        assertEquals(Set.of("USD-BRL"), rateStream.pairs(RateStream.Source.QUOTE));
+        second.dispose();
+        assertEquals(Set.of(), rateStream.pairs(RateStream.Source.QUOTE));
+    }
+
+    @Test
+    void testLocalRatesArePublishedFromNewSnapshots() {
+        List<String> received = new ArrayList<>();
+        Disposable subscription = subscribe(RateStream.Source.LOCAL, List.of("USD-BRL"), received);
+
+        rateStream.onRatesChanged(RateMatrix.of(1L, List.of(new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.10"))))));
+        rateStream.onRatesChanged(RateMatrix.of(2L, List.of(
+                new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.10"))),
+                new RateMatrix.Row(2L, "EUR", "Euro", Map.of("BRL", new BigDecimal("6.00"))))));
+        rateStream.onRatesChanged(RateMatrix.of(3L, List.of(new RateMatrix.Row(1L, "USD", "Dollar", Map.of("BRL", new BigDecimal("5.30"))))));
+
+        assertEquals(List.of("USD-BRL 5.10", "USD-BRL 5.30"), received);
+        subscription.dispose();
+    }
+
+    @Test
+    void testInvalidSubscriptionsAreRejected() {
+        CurrencyException tooMany = assertThrows(CurrencyException.class,
+                () -> rateStream.subscribe(RateStream.Source.QUOTE, List.of("USD-BRL", "EUR-BRL", "GBP-BRL"), pair -> { }));
+        CurrencyException invalid = assertThrows(CurrencyException.class,
+                () -> rateStream.subscribe(RateStream.Source.QUOTE, List.of("USDBRL"), pair -> { }));
+
+        assertEquals("Subscribe to between 1 and 2 pairs", tooMany.getMessage());
+        assertEquals("Invalid pair: USDBRL", invalid.getMessage());
+    }
+
+    private Disposable subscribe(RateStream.Source source, List<String> pairs, List<String> received) {
+        return rateStream.subscribe(source, pairs, pair -> { }).subscribe(event -> received.add(format(event)));
+    }
+
+    private String format(RateUpdate update) {
+        return update.getPair() + " " + update.getRate();
+    }
+}